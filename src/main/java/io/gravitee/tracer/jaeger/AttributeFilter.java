@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger;
+
+import io.gravitee.tracer.jaeger.configuration.JaegerTracerConfiguration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Decides which tags of a {@link io.vertx.core.spi.tracing.TagExtractor} are read, and when.
+ *
+ * Sampling attributes are read before the span is started, so that the sampler sees them. All the other tags are only
+ * read once the span is known to be recorded, and only when they pass the include and exclude lists.
+ *
+ * @author GraviteeSource Team
+ */
+public final class AttributeFilter {
+
+    private final Set<String> sampling;
+    private final Set<String> included;
+    private final Set<String> excluded;
+    private final boolean filtering;
+
+    private AttributeFilter(List<String> sampling, List<String> included, List<String> excluded) {
+        this.sampling = toSet(sampling);
+        this.included = toSet(included);
+        this.excluded = toSet(excluded);
+        this.filtering = !this.included.isEmpty() || !this.excluded.isEmpty();
+    }
+
+    public static AttributeFilter from(JaegerTracerConfiguration configuration) {
+        return new AttributeFilter(
+            configuration.getSamplingAttributes(),
+            configuration.getIncludedAttributes(),
+            configuration.getExcludedAttributes()
+        );
+    }
+
+    public boolean hasSamplingAttributes() {
+        return !sampling.isEmpty();
+    }
+
+    /**
+     * @return <code>true</code> if the tag must be read before starting the span.
+     */
+    public boolean isSamplingAttribute(String name) {
+        return !sampling.isEmpty() && sampling.contains(name);
+    }
+
+    /**
+     * @return <code>true</code> if the tag must be read on a recorded span.
+     */
+    public boolean isExtracted(String name) {
+        if (!filtering) {
+            return true;
+        }
+        return (included.isEmpty() || included.contains(name)) && !excluded.contains(name);
+    }
+
+    private static Set<String> toSet(List<String> values) {
+        return values == null || values.isEmpty() ? Set.of() : new HashSet<>(values);
+    }
+}
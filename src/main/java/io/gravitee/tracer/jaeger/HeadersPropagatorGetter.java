@@ -16,6 +16,7 @@
 package io.gravitee.tracer.jaeger;
 
 import io.opentelemetry.context.propagation.TextMapGetter;
+import io.vertx.core.MultiMap;
 import java.util.HashSet;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -28,6 +29,13 @@ public class HeadersPropagatorGetter implements TextMapGetter<Iterable<Entry<Str
 
     @Override
     public Iterable<String> keys(final Iterable<Entry<String, String>> carrier) {
+        if (carrier instanceof MultiMap) {
+            return ((MultiMap) carrier).names();
+        }
+        if (carrier instanceof IndexedHeaders) {
+            return ((IndexedHeaders) carrier).keys();
+        }
+
         Set<String> keys = new HashSet<>();
         for (Entry<String, String> entry : carrier) {
             keys.add(entry.getKey());
@@ -40,6 +48,13 @@ public class HeadersPropagatorGetter implements TextMapGetter<Iterable<Entry<Str
         if (carrier == null) {
             return null;
         }
+        if (carrier instanceof MultiMap) {
+            return ((MultiMap) carrier).get(key);
+        }
+        if (carrier instanceof IndexedHeaders) {
+            return ((IndexedHeaders) carrier).get(key);
+        }
+
         for (Entry<String, String> entry : carrier) {
             if (entry.getKey().equalsIgnoreCase(key)) {
                 return entry.getValue();
@@ -0,0 +1,129 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger;
+
+import io.vertx.core.MultiMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * Headers carrier indexing all the headers in a single pass, done the first time it is read whatever the lookup, so
+ * that the propagators never scan the headers again. The headers the propagators are interested in are indexed by
+ * position, the others by lower case name.
+ *
+ * @author GraviteeSource Team
+ */
+public final class IndexedHeaders implements Iterable<Entry<String, String>> {
+
+    private final Iterable<Entry<String, String>> headers;
+    private final String[] keys;
+    private String[] values;
+    private Map<String, String> others;
+    private Set<String> names;
+
+    private IndexedHeaders(Iterable<Entry<String, String>> headers, String[] keys) {
+        this.headers = headers;
+        this.keys = keys;
+    }
+
+    /**
+     * Wrap the given headers, unless they can already be looked up efficiently (Vert.x {@link MultiMap} are read
+     * directly, without copying).
+     *
+     * @param headers the incoming headers.
+     * @param keys the header names to index, usually the fields of the propagator.
+     */
+    public static Iterable<Entry<String, String>> of(Iterable<Entry<String, String>> headers, String[] keys) {
+        if (headers == null || headers instanceof MultiMap || headers instanceof IndexedHeaders) {
+            return headers;
+        }
+        return new IndexedHeaders(headers, keys);
+    }
+
+    public String get(String key) {
+        if (values == null) {
+            index();
+        }
+        int slot = slot(key);
+        return slot < 0 ? others.get(key.toLowerCase(Locale.ROOT)) : values[slot];
+    }
+
+    /**
+     * @return the names of the headers, collected while indexing the values.
+     */
+    public Set<String> keys() {
+        if (values == null) {
+            index();
+        }
+        return names;
+    }
+
+    @Override
+    public Iterator<Entry<String, String>> iterator() {
+        return headers.iterator();
+    }
+
+    private int slot(String key) {
+        // propagators look headers up with the same constants they expose as fields
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].equalsIgnoreCase(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void index() {
+        String[] indexed = new String[keys.length];
+        Map<String, String> byName = new HashMap<>();
+        Set<String> collected = new HashSet<>();
+
+        for (Entry<String, String> entry : headers) {
+            String name = entry.getKey();
+            collected.add(name);
+            int slot = -1;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].length() == name.length() && keys[i].equalsIgnoreCase(name)) {
+                    slot = i;
+                    break;
+                }
+            }
+            // keep the first value, as a scan over the headers would do
+            if (slot >= 0) {
+                if (indexed[slot] == null) {
+                    indexed[slot] = entry.getValue();
+                }
+            } else {
+                byName.putIfAbsent(name.toLowerCase(Locale.ROOT), entry.getValue());
+            }
+        }
+
+        others = byName;
+        names = Collections.unmodifiableSet(collected);
+        values = indexed;
+    }
+}
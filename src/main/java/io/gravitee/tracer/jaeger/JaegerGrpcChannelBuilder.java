@@ -16,21 +16,17 @@
 package io.gravitee.tracer.jaeger;
 
 import io.gravitee.tracer.jaeger.configuration.JaegerTracerConfiguration;
+import io.gravitee.tracer.jaeger.exporter.CollectorEndpoint;
+import io.grpc.ClientInterceptor;
 import io.grpc.ManagedChannel;
 import io.vertx.core.Vertx;
 import io.vertx.core.net.ClientOptionsBase;
-import io.vertx.core.net.JksOptions;
-import io.vertx.core.net.PemKeyCertOptions;
-import io.vertx.core.net.PemTrustOptions;
-import io.vertx.core.net.PfxOptions;
+import io.vertx.core.net.KeyCertOptions;
+import io.vertx.core.net.TrustOptions;
 import io.vertx.grpc.VertxChannelBuilder;
 
 public class JaegerGrpcChannelBuilder {
 
-    private static final String KEYSTORE_FORMAT_JKS = "JKS";
-    private static final String KEYSTORE_FORMAT_PEM = "PEM";
-    private static final String KEYSTORE_FORMAT_PKCS12 = "PKCS12";
-
     private final Vertx vertx;
     private final JaegerTracerConfiguration configuration;
 
@@ -44,7 +40,16 @@ public class JaegerGrpcChannelBuilder {
     }
 
     public ManagedChannel build() {
-        var channelBuilder = VertxChannelBuilder.forAddress(vertx, configuration.getHost(), configuration.getPort());
+        return build(new CollectorEndpoint(configuration.getHost(), configuration.getPort()));
+    }
+
+    public ManagedChannel build(CollectorEndpoint endpoint, ClientInterceptor... interceptors) {
+        var channelBuilder = VertxChannelBuilder.forAddress(vertx, endpoint.getHost(), endpoint.getPort()).intercept(interceptors);
+
+        if (endpoint.isResolved()) {
+            // Connect to the resolved address while keeping the host name for TLS verification
+            channelBuilder.overrideAuthority(endpoint.getAuthority() + ":" + endpoint.getPort());
+        }
 
         if (configuration.isSslEnabled()) {
             channelBuilder.useSsl(this::configureSsl).useTransportSecurity();
@@ -58,36 +63,16 @@ public class JaegerGrpcChannelBuilder {
     private void configureSsl(ClientOptionsBase options) {
         options.setSsl(true).setUseAlpn(true).setTrustAll(configuration.isTrustAll());
 
-        if (configuration.getKeystoreType() != null) {
-            if (configuration.getKeystoreType().equalsIgnoreCase(KEYSTORE_FORMAT_JKS)) {
-                options.setKeyStoreOptions(
-                    new JksOptions().setPath(configuration.getKeystorePath()).setPassword(configuration.getKeystorePassword())
-                );
-            } else if (configuration.getKeystoreType().equalsIgnoreCase(KEYSTORE_FORMAT_PKCS12)) {
-                options.setPfxKeyCertOptions(
-                    new PfxOptions().setPath(configuration.getKeystorePath()).setPassword(configuration.getKeystorePassword())
-                );
-            } else if (configuration.getKeystoreType().equalsIgnoreCase(KEYSTORE_FORMAT_PEM)) {
-                options.setPemKeyCertOptions(
-                    new PemKeyCertOptions()
-                        .setCertPaths(configuration.getKeystorePemCerts())
-                        .setKeyPaths(configuration.getKeystorePemKeys())
-                );
-            }
+        JaegerSslOptions sslOptions = JaegerSslOptions.from(configuration);
+
+        KeyCertOptions keyCertOptions = sslOptions.keyCertOptions();
+        if (keyCertOptions != null) {
+            options.setKeyCertOptions(keyCertOptions);
         }
 
-        if (configuration.getTruststoreType() != null) {
-            if (configuration.getTruststoreType().equalsIgnoreCase(KEYSTORE_FORMAT_JKS)) {
-                options.setTrustStoreOptions(
-                    new JksOptions().setPath(configuration.getTruststorePath()).setPassword(configuration.getTruststorePassword())
-                );
-            } else if (configuration.getTruststoreType().equalsIgnoreCase(KEYSTORE_FORMAT_PKCS12)) {
-                options.setPfxTrustOptions(
-                    new PfxOptions().setPath(configuration.getTruststorePath()).setPassword(configuration.getTruststorePassword())
-                );
-            } else if (configuration.getTruststoreType().equalsIgnoreCase(KEYSTORE_FORMAT_PEM)) {
-                options.setPemTrustOptions(new PemTrustOptions().addCertPath(configuration.getTruststorePath()));
-            }
+        TrustOptions trustOptions = sslOptions.trustOptions();
+        if (trustOptions != null) {
+            options.setTrustOptions(trustOptions);
         }
     }
 }
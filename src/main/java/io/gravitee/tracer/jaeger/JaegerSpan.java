@@ -16,37 +16,101 @@
 package io.gravitee.tracer.jaeger;
 
 import io.gravitee.tracing.api.Span;
+import io.opentelemetry.api.common.AttributeKey;
 import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
 import io.opentelemetry.context.Scope;
 
 /**
+ * Besides attributes and errors, the span records timestamped events, which mark the milestones of a request at a
+ * fraction of the cost and of the export size of nested spans. Events are buffered, up to a bound past which the
+ * oldest ones are overwritten, and added to the span when it ends.
+ *
+ * The tracing API has no event method and the other plugins only see this span through it, so events are also recorded
+ * for the reserved attributes: <code>withAttribute("gravitee.event", name)</code> records an event without value, and
+ * <code>withAttribute("gravitee.event." + name, value)</code> an event with a <code>value</code> attribute.
+ *
  * @author David BRASSELY (david.brassely at graviteesource.com)
  * @author GraviteeSource Team
  */
 public class JaegerSpan implements Span {
 
+    static final int DEFAULT_MAX_EVENTS = 32;
+    static final String EVENT_ATTRIBUTE = "gravitee.event";
+
+    // mirrors the error status, which the span processors cannot read without copying the span
+    private static final AttributeKey<Boolean> ERROR = AttributeKey.booleanKey("error");
+
+    private static final String EVENT_ATTRIBUTE_PREFIX = EVENT_ATTRIBUTE + ".";
+    private static final String EVENT_VALUE_KEY = "value";
+
     private final io.opentelemetry.api.trace.Span span;
     private final Scope scope;
+    private final io.vertx.core.Context vertxContext;
+    private final Context previousContext;
+    private final int maxDescriptionLength;
+    private final int maxEvents;
+    private SpanEventBuffer events;
 
     public JaegerSpan(final io.opentelemetry.api.trace.Span span, Scope scope) {
+        this(span, scope, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxDescriptionLength the status description is not subject to the span limits, so error messages are
+     *                             truncated to this length.
+     */
+    public JaegerSpan(final io.opentelemetry.api.trace.Span span, Scope scope, int maxDescriptionLength) {
         this.span = span;
         this.scope = scope;
+        this.vertxContext = null;
+        this.previousContext = null;
+        this.maxDescriptionLength = maxDescriptionLength;
+        this.maxEvents = DEFAULT_MAX_EVENTS;
+    }
+
+    /**
+     * Span restoring itself the previous tracing context of the Vert.x context when it ends, instead of going through a
+     * {@link Scope}.
+     */
+    JaegerSpan(
+        final io.opentelemetry.api.trace.Span span,
+        io.vertx.core.Context vertxContext,
+        Context previousContext,
+        int maxDescriptionLength,
+        int maxEvents
+    ) {
+        this.span = span;
+        this.scope = null;
+        this.vertxContext = vertxContext;
+        this.previousContext = previousContext;
+        this.maxDescriptionLength = maxDescriptionLength;
+        this.maxEvents = maxEvents;
     }
 
     @Override
     public Span withAttribute(String name, String value) {
+        if (EVENT_ATTRIBUTE.equals(name)) {
+            return addEvent(value);
+        }
         span.setAttribute(name, value);
         return this;
     }
 
     @Override
     public Span withAttribute(String name, boolean value) {
+        if (isEventAttribute(name)) {
+            return addEvent(eventName(name), EVENT_VALUE_KEY, value);
+        }
         span.setAttribute(name, value);
         return this;
     }
 
     @Override
     public Span withAttribute(String name, long value) {
+        if (isEventAttribute(name)) {
+            return addEvent(eventName(name), EVENT_VALUE_KEY, value);
+        }
         span.setAttribute(name, value);
         return this;
     }
@@ -54,19 +118,76 @@ public class JaegerSpan implements Span {
     @Override
     public Span reportError(Throwable throwable) {
         span.recordException(throwable);
-        span.setStatus(StatusCode.ERROR, throwable.getMessage());
+        span.setStatus(StatusCode.ERROR, truncate(throwable.getMessage()));
+        span.setAttribute(ERROR, true);
         return this;
     }
 
     @Override
     public Span reportError(String message) {
-        span.setStatus(StatusCode.ERROR, message);
+        span.setStatus(StatusCode.ERROR, truncate(message));
+        span.setAttribute(ERROR, true);
+        return this;
+    }
+
+    /**
+     * Records an event, timestamped now, added to the span when it ends.
+     */
+    public JaegerSpan addEvent(String name) {
+        return record(name, null, SpanEventBuffer.NO_VALUE, 0);
+    }
+
+    public JaegerSpan addEvent(String name, String key, long value) {
+        return record(name, key, SpanEventBuffer.LONG_VALUE, value);
+    }
+
+    public JaegerSpan addEvent(String name, String key, double value) {
+        return record(name, key, SpanEventBuffer.DOUBLE_VALUE, Double.doubleToRawLongBits(value));
+    }
+
+    public JaegerSpan addEvent(String name, String key, boolean value) {
+        return record(name, key, SpanEventBuffer.BOOLEAN_VALUE, value ? 1 : 0);
+    }
+
+    private static boolean isEventAttribute(String name) {
+        return name.length() > EVENT_ATTRIBUTE_PREFIX.length() && name.startsWith(EVENT_ATTRIBUTE_PREFIX);
+    }
+
+    private static String eventName(String name) {
+        return name.substring(EVENT_ATTRIBUTE_PREFIX.length());
+    }
+
+    // events of a span not recorded would never be exported, they are not even buffered
+    private synchronized JaegerSpan record(String name, String key, byte type, long value) {
+        if (maxEvents > 0 && span.isRecording()) {
+            if (events == null) {
+                events = new SpanEventBuffer(maxEvents);
+            }
+            events.add(name, key, type, value);
+        }
         return this;
     }
 
     @Override
     public void end() {
+        synchronized (this) {
+            if (events != null) {
+                events.addTo(span);
+                events = null;
+            }
+        }
         span.end();
-        scope.close();
+        if (scope != null) {
+            scope.close();
+        } else {
+            VertxContextStorageProvider.VertxContextStorage.INSTANCE.restore(vertxContext, previousContext);
+        }
+    }
+
+    private String truncate(String message) {
+        if (message == null || maxDescriptionLength < 0 || message.length() <= maxDescriptionLength) {
+            return message;
+        }
+        return message.substring(0, maxDescriptionLength);
     }
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger;
+
+import io.gravitee.tracer.jaeger.configuration.JaegerTracerConfiguration;
+import io.vertx.core.net.JksOptions;
+import io.vertx.core.net.KeyCertOptions;
+import io.vertx.core.net.PemKeyCertOptions;
+import io.vertx.core.net.PemTrustOptions;
+import io.vertx.core.net.PfxOptions;
+import io.vertx.core.net.TrustOptions;
+
+/**
+ * Builds the Vert.x key store and trust store options from the <code>services.tracing.jaeger.ssl</code> settings, so
+ * that every exporter shares the same TLS configuration.
+ *
+ * @author GraviteeSource Team
+ */
+public class JaegerSslOptions {
+
+    private static final String KEYSTORE_FORMAT_JKS = "JKS";
+    private static final String KEYSTORE_FORMAT_PEM = "PEM";
+    private static final String KEYSTORE_FORMAT_PKCS12 = "PKCS12";
+
+    private final JaegerTracerConfiguration configuration;
+
+    private JaegerSslOptions(JaegerTracerConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    public static JaegerSslOptions from(JaegerTracerConfiguration configuration) {
+        return new JaegerSslOptions(configuration);
+    }
+
+    /**
+     * @return the client key store options, or <code>null</code> if no key store is configured.
+     */
+    public KeyCertOptions keyCertOptions() {
+        if (configuration.getKeystoreType() != null) {
+            if (configuration.getKeystoreType().equalsIgnoreCase(KEYSTORE_FORMAT_JKS)) {
+                return new JksOptions().setPath(configuration.getKeystorePath()).setPassword(configuration.getKeystorePassword());
+            } else if (configuration.getKeystoreType().equalsIgnoreCase(KEYSTORE_FORMAT_PKCS12)) {
+                return new PfxOptions().setPath(configuration.getKeystorePath()).setPassword(configuration.getKeystorePassword());
+            } else if (configuration.getKeystoreType().equalsIgnoreCase(KEYSTORE_FORMAT_PEM)) {
+                return new PemKeyCertOptions()
+                    .setCertPaths(configuration.getKeystorePemCerts())
+                    .setKeyPaths(configuration.getKeystorePemKeys());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the trust store options, or <code>null</code> if no trust store is configured.
+     */
+    public TrustOptions trustOptions() {
+        if (configuration.getTruststoreType() != null) {
+            if (configuration.getTruststoreType().equalsIgnoreCase(KEYSTORE_FORMAT_JKS)) {
+                return new JksOptions().setPath(configuration.getTruststorePath()).setPassword(configuration.getTruststorePassword());
+            } else if (configuration.getTruststoreType().equalsIgnoreCase(KEYSTORE_FORMAT_PKCS12)) {
+                return new PfxOptions().setPath(configuration.getTruststorePath()).setPassword(configuration.getTruststorePassword());
+            } else if (configuration.getTruststoreType().equalsIgnoreCase(KEYSTORE_FORMAT_PEM)) {
+                return new PemTrustOptions().addCertPath(configuration.getTruststorePath());
+            }
+        }
+        return null;
+    }
+}
@@ -20,44 +20,83 @@ import io.gravitee.node.api.Node;
 import io.gravitee.node.api.tracing.Tracer;
 import io.gravitee.node.tracing.vertx.VertxTracer;
 import io.gravitee.tracer.jaeger.configuration.JaegerTracerConfiguration;
-import io.grpc.ManagedChannel;
+import io.gravitee.tracer.jaeger.exporter.SpanExporterBuilder;
+import io.gravitee.tracer.jaeger.exporter.SwappableSpanExporter;
+import io.gravitee.tracer.jaeger.id.FastIdGenerator;
+import io.gravitee.tracer.jaeger.id.IdGeneratorType;
+import io.gravitee.tracer.jaeger.metrics.TracerMetrics;
+import io.gravitee.tracer.jaeger.processor.AdaptiveBatchSpanProcessor;
+import io.gravitee.tracer.jaeger.processor.RedMetricsSpanProcessor;
+import io.gravitee.tracer.jaeger.processor.TailSamplingSpanProcessor;
+import io.gravitee.tracer.jaeger.propagation.PropagatorsBuilder;
+import io.gravitee.tracer.jaeger.sampler.JaegerSamplerBuilder;
+import io.gravitee.tracer.jaeger.sampler.SwappableSampler;
+import io.gravitee.tracer.jaeger.spill.SpillingSpanExporter;
 import io.opentelemetry.api.common.AttributeKey;
 import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.SpanBuilder;
-import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
-import io.opentelemetry.context.Scope;
 import io.opentelemetry.context.propagation.ContextPropagators;
 import io.opentelemetry.context.propagation.TextMapGetter;
 import io.opentelemetry.context.propagation.TextMapSetter;
-import io.opentelemetry.exporter.jaeger.JaegerGrpcSpanExporter;
 import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.common.CompletableResultCode;
 import io.opentelemetry.sdk.resources.Resource;
 import io.opentelemetry.sdk.trace.SdkTracerProvider;
-import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.SpanLimits;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
 import io.vertx.core.Context;
 import io.vertx.core.Vertx;
 import io.vertx.core.spi.tracing.SpanKind;
 import io.vertx.core.spi.tracing.TagExtractor;
 import io.vertx.core.tracing.TracingPolicy;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 
 /**
  * @author David BRASSELY (david.brassely at graviteesource.com)
  * @author GraviteeSource Team
  */
+@Slf4j
 public class JaegerTracer extends AbstractService<Tracer> implements VertxTracer<Span, Span> {
 
     private static final TextMapGetter<Iterable<Map.Entry<String, String>>> getter = new HeadersPropagatorGetter();
     private static final TextMapSetter<BiConsumer<String, String>> setter = new HeadersPropagatorSetter();
+    private static final AttributeKey<Boolean> ERROR = AttributeKey.booleanKey("error");
+    private static final String HTTP_STATUS_CODE_TAG = "http.status_code";
 
     private io.opentelemetry.api.trace.Tracer tracer;
     private ContextPropagators propagators;
+    private String[] propagatedFields;
+    private TracerMetrics metrics = TracerMetrics.noop();
+    private AttributeFilter attributeFilter;
+    private OperationNameNormalizer operationNameNormalizer;
+    private TracingRules tracingRules;
+    private SwappableSpanExporter exporter;
+    private SwappableSampler sampler;
+    private List<Closeable> samplerResources = List.of();
+    private SdkTracerProvider tracerProvider;
+    private AdaptiveBatchSpanProcessor batchProcessor;
+    private SpillingSpanExporter spillingExporter;
 
-    private final JaegerTracerConfiguration configuration;
+    /**
+     * The configuration the tracer runs with, only replaced when the tracer starts.
+     */
+    private JaegerTracerConfiguration configuration;
+
+    /**
+     * The configuration applied on the next start, replaced by {@link #reconfigure(JaegerTracerConfiguration)}.
+     */
+    private volatile JaegerTracerConfiguration nextConfiguration;
 
     private final Node node;
 
@@ -66,37 +105,153 @@ public class JaegerTracer extends AbstractService<Tracer> implements VertxTracer
     @Autowired
     public JaegerTracer(JaegerTracerConfiguration configuration, Node node, Vertx vertx) {
         this.configuration = configuration;
+        this.nextConfiguration = configuration;
         this.node = node;
         this.vertx = vertx;
     }
 
     @Override
     protected void doStart() {
-        // Create a channel towards Jaeger end point
-        final ManagedChannel channel = JaegerGrpcChannelBuilder.from(vertx, configuration).build();
-        final JaegerGrpcSpanExporter exporter = JaegerGrpcSpanExporter
-            .builder()
-            .setChannel(channel)
-            .setTimeout(30, TimeUnit.SECONDS)
-            .build();
+        this.configuration = nextConfiguration;
+        this.metrics = createMetrics();
+        this.attributeFilter = AttributeFilter.from(configuration);
+        this.operationNameNormalizer = OperationNameNormalizer.from(configuration);
+        this.tracingRules = TracingRules.from(configuration);
+
+        this.exporter = new SwappableSpanExporter(createSpanExporter());
+        this.sampler = new SwappableSampler(createSampler(configuration));
+
+        SpanProcessor spanProcessor = createBatchSpanProcessor(exporter);
+        if (configuration.isTailSamplingEnabled()) {
+            spanProcessor = new TailSamplingSpanProcessor(spanProcessor, configuration);
+        }
+        if (configuration.isRedEnabled()) {
+            spanProcessor = SpanProcessor.composite(new RedMetricsSpanProcessor(configuration, metrics), spanProcessor);
+        }
 
         Resource serviceNameResource = Resource.create(Attributes.of(AttributeKey.stringKey("service.name"), node.application()));
 
         // Set to process the spans by the Jaeger Exporter
-        SdkTracerProvider tracerProvider = SdkTracerProvider
+        this.tracerProvider = SdkTracerProvider
             .builder()
-            .addSpanProcessor(BatchSpanProcessor.builder(exporter).build())
+            .addSpanProcessor(spanProcessor)
+            .setSampler(sampler)
+            .setIdGenerator(FastIdGenerator.of(IdGeneratorType.fromValue(configuration.getIdGenerator())))
+            .setSpanLimits(spanLimits())
             .setResource(Resource.getDefault().merge(serviceNameResource))
             .build();
 
         OpenTelemetrySdk openTelemetry = OpenTelemetrySdk
             .builder()
             .setTracerProvider(tracerProvider)
-            .setPropagators(ContextPropagators.create(W3CTraceContextPropagator.getInstance()))
+            .setPropagators(PropagatorsBuilder.from(configuration).build())
             .build();
 
         this.tracer = openTelemetry.getTracer("io.gravitee");
         this.propagators = openTelemetry.getPropagators();
+        this.propagatedFields = propagators.getTextMapPropagator().fields().toArray(new String[0]);
+    }
+
+    private SpanLimits spanLimits() {
+        return SpanLimits
+            .builder()
+            .setMaxNumberOfAttributes(configuration.getLimitsMaxAttributes())
+            .setMaxNumberOfEvents(configuration.getLimitsMaxEvents())
+            .setMaxNumberOfLinks(configuration.getLimitsMaxLinks())
+            .setMaxNumberOfAttributesPerEvent(configuration.getLimitsMaxAttributesPerEvent())
+            .setMaxAttributeValueLength(configuration.getLimitsMaxAttributeValueLength())
+            .build();
+    }
+
+    protected TracerMetrics createMetrics() {
+        return TracerMetrics.create();
+    }
+
+    protected SpanExporter createSpanExporter() {
+        return createSpanExporter(configuration);
+    }
+
+    protected SpanExporter createSpanExporter(JaegerTracerConfiguration configuration) {
+        return SpanExporterBuilder.from(vertx, configuration).metrics(metrics).build();
+    }
+
+    /**
+     * Builds the sampler from the sampler settings of the given configuration. Whether the rules and the RED metrics need
+     * it is decided by the configuration the tracer runs with, as they are only applied when the tracer starts.
+     */
+    private Sampler createSampler(JaegerTracerConfiguration configuration) {
+        List<Closeable> resources = new ArrayList<>();
+        Sampler built = JaegerSamplerBuilder
+            .from(configuration)
+            .ruleSampling(JaegerSamplerBuilder.hasRuleSampling(this.configuration))
+            .recording(this.configuration.isRedEnabled())
+            .serviceName(node.application())
+            .resources(resources::add)
+            .build();
+        closeSamplerResources();
+        samplerResources = resources;
+        return built;
+    }
+
+    private void closeSamplerResources() {
+        for (Closeable resource : samplerResources) {
+            try {
+                resource.close();
+            } catch (IOException e) {
+                log.debug("Unable to close a sampler resource", e);
+            }
+        }
+        samplerResources = List.of();
+    }
+
+    /**
+     * Applies the collector, exporter and sampler settings of the given configuration without restarting the tracer.
+     * Nothing calls it when the gateway configuration changes, it is meant to be called from code.
+     *
+     * The new exporter and sampler are built next to the current ones, then switched in atomically. The previous exporter
+     * completes its in-flight exports and is drained in the background, so no span is lost and the request path never
+     * waits. The tracer keeps running with the other settings of the configuration it was started with, such as the
+     * rules, the attribute filters, the queue, the limits or the propagation formats, so that requests always see one
+     * consistent configuration. The given configuration is applied as a whole when the tracer is restarted.
+     */
+    public synchronized void reconfigure(JaegerTracerConfiguration configuration) {
+        if (tracerProvider == null) {
+            throw new IllegalStateException("The Jaeger tracer is not started");
+        }
+
+        SpanExporter newExporter = createSpanExporter(configuration);
+        Sampler newSampler;
+        try {
+            newSampler = createSampler(configuration);
+        } catch (RuntimeException e) {
+            newExporter.shutdown();
+            throw e;
+        }
+
+        exporter.swap(newExporter);
+        sampler.swap(newSampler);
+        this.nextConfiguration = configuration;
+        log.info("Jaeger tracer exporter and sampler reconfigured");
+    }
+
+    private SpanProcessor createBatchSpanProcessor(SpanExporter exporter) {
+        if (configuration.isSpillEnabled()) {
+            try {
+                SpillingSpanExporter spillingExporter = SpillingSpanExporter.create(exporter, configuration);
+                metrics.bind(spillingExporter);
+                this.spillingExporter = spillingExporter;
+                return bind(new AdaptiveBatchSpanProcessor(spillingExporter, configuration, spillingExporter::offer));
+            } catch (IOException | RuntimeException e) {
+                log.warn("Unable to open the span spill buffer, spans will only be kept in memory", e);
+            }
+        }
+        return bind(new AdaptiveBatchSpanProcessor(exporter, configuration));
+    }
+
+    private AdaptiveBatchSpanProcessor bind(AdaptiveBatchSpanProcessor processor) {
+        metrics.bind(processor);
+        this.batchProcessor = processor;
+        return processor;
     }
 
     @Override
@@ -109,23 +264,29 @@ public class JaegerTracer extends AbstractService<Tracer> implements VertxTracer
         final Iterable<Map.Entry<String, String>> headers,
         final TagExtractor<R> tagExtractor
     ) {
-        if (TracingPolicy.IGNORE.equals(policy)) {
+        if (TracingPolicy.IGNORE.equals(policy) && !tracingRules.overridesIgnore()) {
+            return null;
+        }
+
+        final TracingRule rule = tracingRules.match(operation, request, tagExtractor);
+        final TracingPolicy appliedPolicy = rule == null ? policy : rule.apply(policy);
+        if (TracingPolicy.IGNORE.equals(appliedPolicy)) {
             return null;
         }
 
         io.opentelemetry.context.Context tracingContext = propagators
             .getTextMapPropagator()
-            .extract(io.opentelemetry.context.Context.root(), headers, getter);
+            .extract(io.opentelemetry.context.Context.root(), IndexedHeaders.of(headers, propagatedFields), getter);
 
         // If no span, and policy is PROPAGATE, then don't create the span
-        if (Span.fromContextOrNull(tracingContext) == null && TracingPolicy.PROPAGATE.equals(policy)) {
+        if (Span.fromContextOrNull(tracingContext) == null && TracingPolicy.PROPAGATE.equals(appliedPolicy)) {
             return null;
         }
 
         final Span span = reportTagsAndStart(
             tracer
-                .spanBuilder(operation)
-                .setParent(tracingContext)
+                .spanBuilder(operationNameNormalizer.normalize(operation))
+                .setParent(withRule(tracingContext, rule))
                 .setSpanKind(
                     SpanKind.RPC.equals(kind) ? io.opentelemetry.api.trace.SpanKind.CLIENT : io.opentelemetry.api.trace.SpanKind.PRODUCER
                 ),
@@ -133,7 +294,8 @@ public class JaegerTracer extends AbstractService<Tracer> implements VertxTracer
             tagExtractor
         );
 
-        VertxContextStorageProvider.VertxContextStorage.INSTANCE.attach(context, tracingContext.with(span));
+        // the span is detached by sendResponse, so no scope is needed
+        VertxContextStorageProvider.VertxContextStorage.INSTANCE.swap(context, tracingContext.with(span));
 
         return span;
     }
@@ -155,10 +317,11 @@ public class JaegerTracer extends AbstractService<Tracer> implements VertxTracer
     private <R> void end(Span span, R response, TagExtractor<R> tagExtractor, Throwable failure) {
         if (failure != null) {
             span.recordException(failure);
+            span.setAttribute(ERROR, true);
         }
 
-        if (response != null) {
-            tagExtractor.extractTo(response, span::setAttribute);
+        if (response != null && span.isRecording()) {
+            reportTags(span, response, tagExtractor, false);
         }
         span.end();
     }
@@ -173,12 +336,22 @@ public class JaegerTracer extends AbstractService<Tracer> implements VertxTracer
         final BiConsumer<String, String> headers,
         final TagExtractor<R> tagExtractor
     ) {
-        if (TracingPolicy.IGNORE.equals(policy) || request == null) {
+        if (request == null) {
+            return null;
+        }
+
+        if (TracingPolicy.IGNORE.equals(policy) && !tracingRules.overridesIgnore()) {
+            return null;
+        }
+
+        final TracingRule rule = tracingRules.match(operation, request, tagExtractor);
+        final TracingPolicy appliedPolicy = rule == null ? policy : rule.apply(policy);
+        if (TracingPolicy.IGNORE.equals(appliedPolicy)) {
             return null;
         }
 
         io.opentelemetry.context.Context tracingContext = VertxContextStorageProvider.VertxContextStorage.INSTANCE.current(context);
-        if (tracingContext == null && !TracingPolicy.ALWAYS.equals(policy)) {
+        if (tracingContext == null && !TracingPolicy.ALWAYS.equals(appliedPolicy)) {
             return null;
         }
 
@@ -188,8 +361,8 @@ public class JaegerTracer extends AbstractService<Tracer> implements VertxTracer
 
         final Span span = reportTagsAndStart(
             tracer
-                .spanBuilder(operation)
-                .setParent(tracingContext)
+                .spanBuilder(operationNameNormalizer.normalize(operation))
+                .setParent(withRule(tracingContext, rule))
                 .setSpanKind(
                     SpanKind.RPC.equals(kind) ? io.opentelemetry.api.trace.SpanKind.CLIENT : io.opentelemetry.api.trace.SpanKind.PRODUCER
                 ),
@@ -215,28 +388,126 @@ public class JaegerTracer extends AbstractService<Tracer> implements VertxTracer
         }
     }
 
-    // tags need to be set before start, otherwise any sampler registered won't have access to it
-    private <T> Span reportTagsAndStart(SpanBuilder span, T obj, TagExtractor<T> tagExtractor) {
+    // the rule is only seen by the sampler, the context stored and propagated is left untouched
+    private static io.opentelemetry.context.Context withRule(io.opentelemetry.context.Context tracingContext, TracingRule rule) {
+        return rule == null || rule.getSampler() == null ? tracingContext : tracingContext.with(TracingRule.CONTEXT_KEY, rule);
+    }
+
+    // only the sampling attributes are given to the sampler, the other tags are extracted once we know the span is recorded.
+    // Attributes set on the builder end up on the exported span, so the excluded tags are not given to the sampler either
+    private <T> Span reportTagsAndStart(SpanBuilder spanBuilder, T obj, TagExtractor<T> tagExtractor) {
+        final boolean samplingAttributes = attributeFilter.hasSamplingAttributes();
+        if (samplingAttributes) {
+            int len = tagExtractor.len(obj);
+            for (int idx = 0; idx < len; idx++) {
+                String name = tagExtractor.name(obj, idx);
+                if (attributeFilter.isSamplingAttribute(name) && attributeFilter.isExtracted(name)) {
+                    spanBuilder.setAttribute(name, tagExtractor.value(obj, idx));
+                }
+            }
+        }
+
+        final Span span = spanBuilder.startSpan();
+        metrics.spanStarted(span.getSpanContext().isSampled());
+        if (span.isRecording()) {
+            reportTags(span, obj, tagExtractor, samplingAttributes);
+        }
+        return span;
+    }
+
+    // spans recorded only for the RED metrics are not exported, they just need their status code
+    private <T> void reportTags(Span span, T obj, TagExtractor<T> tagExtractor, boolean samplingAttributes) {
+        final boolean sampled = span.getSpanContext().isSampled();
         int len = tagExtractor.len(obj);
         for (int idx = 0; idx < len; idx++) {
-            span.setAttribute(tagExtractor.name(obj, idx), tagExtractor.value(obj, idx));
+            String name = tagExtractor.name(obj, idx);
+            if (sampled) {
+                if (attributeFilter.isExtracted(name) && !(samplingAttributes && attributeFilter.isSamplingAttribute(name))) {
+                    span.setAttribute(name, tagExtractor.value(obj, idx));
+                }
+            } else if (HTTP_STATUS_CODE_TAG.equals(name)) {
+                span.setAttribute(name, tagExtractor.value(obj, idx));
+            }
         }
-        return span.startSpan();
     }
 
+    /**
+     * Exports the spans ended so far, for short-lived jobs which must not exit before their spans are sent.
+     */
+    public CompletableResultCode forceFlush() {
+        return tracerProvider == null ? CompletableResultCode.ofSuccess() : tracerProvider.forceFlush();
+    }
+
+    /**
+     * Stops the tracer: new spans are no longer recorded, the pending ones are exported within the shutdown timeout,
+     * then the exporters and their channels are closed. The spans which could not be exported in time are reported as
+     * dropped.
+     */
     @Override
     protected void doStop() {
+        if (tracerProvider != null) {
+            long start = System.nanoTime();
+            long lostBefore = lostSpans();
+            if (spillingExporter != null) {
+                spillingExporter.shutdownBefore(start + TimeUnit.MILLISECONDS.toNanos(configuration.getShutdownTimeout()));
+            }
+            CompletableResultCode result = tracerProvider.shutdown().join(configuration.getShutdownTimeout(), TimeUnit.MILLISECONDS);
+            long duration = System.nanoTime() - start;
+
+            long dropped = lostSpans() - lostBefore + (batchProcessor == null ? 0 : batchProcessor.getQueueSize());
+            metrics.shutdown(duration, dropped);
+            if (result.isSuccess()) {
+                log.info("Jaeger tracer stopped in {} ms, {} spans dropped", TimeUnit.NANOSECONDS.toMillis(duration), dropped);
+            } else {
+                log.warn(
+                    "Jaeger tracer did not export all its spans within {} ms, {} spans dropped",
+                    configuration.getShutdownTimeout(),
+                    dropped
+                );
+            }
+
+            closeSamplerResources();
+            metrics.close();
+            spillingExporter = null;
+            tracerProvider = null;
+        }
         this.close();
     }
 
+    /**
+     * @return the spans lost so far, because they ended after the shutdown, their export failed or they did not fit in
+     * the spill buffer.
+     */
+    private long lostSpans() {
+        long lost = 0;
+        if (batchProcessor != null) {
+            lost += batchProcessor.getRejectedSpans() + batchProcessor.getFailedSpans();
+        }
+        if (spillingExporter != null) {
+            lost += spillingExporter.getDroppedSpans();
+        }
+        return lost;
+    }
+
     @Override
     public io.gravitee.tracing.api.Span trace(String spanName) {
-        io.opentelemetry.context.Context tracingContext = VertxContextStorageProvider.VertxContextStorage.INSTANCE.current();
+        final Context vertxContext = Vertx.currentContext();
+        io.opentelemetry.context.Context tracingContext = VertxContextStorageProvider.VertxContextStorage.INSTANCE.current(vertxContext);
         if (tracingContext == null) {
             tracingContext = io.opentelemetry.context.Context.root();
         }
-        Span span = tracer.spanBuilder(spanName).setParent(tracingContext).startSpan();
-        Scope scope = VertxContextStorageProvider.VertxContextStorage.INSTANCE.attach(tracingContext.with(span));
-        return new JaegerSpan(span, scope);
+        Span span = tracer.spanBuilder(operationNameNormalizer.normalize(spanName)).setParent(tracingContext).startSpan();
+        metrics.spanStarted(span.getSpanContext().isSampled());
+        io.opentelemetry.context.Context previous = VertxContextStorageProvider.VertxContextStorage.INSTANCE.swap(
+            vertxContext,
+            tracingContext.with(span)
+        );
+        return new JaegerSpan(
+            span,
+            vertxContext,
+            previous,
+            configuration.getLimitsMaxAttributeValueLength(),
+            configuration.getEventsBufferSize()
+        );
     }
 }
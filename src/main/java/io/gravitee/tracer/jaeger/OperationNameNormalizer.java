@@ -0,0 +1,187 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger;
+
+import io.gravitee.tracer.jaeger.configuration.JaegerTracerConfiguration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the number of distinct span names bounded, so that Jaeger, the per-operation sampling strategies and the RED
+ * metrics do not grow with every identifier found in request paths.
+ *
+ * The path segments looking like identifiers (numbers, UUIDs, long hexadecimal or alphanumeric tokens) are replaced
+ * by <code>{id}</code>, and the query string is removed. Once the maximum number of distinct names is reached, any new
+ * name is replaced by the overflow name.
+ *
+ * Normalized names are cached by raw name, so that a repeated name is answered by a single lookup, without any
+ * allocation. The cache is made of two generations: names are looked up in the young one then in the old one, which
+ * is dropped when the young one is full. It behaves like an approximate LRU without locking on reads.
+ *
+ * @author GraviteeSource Team
+ */
+public final class OperationNameNormalizer {
+
+    static final String ID_TEMPLATE = "{id}";
+
+    private static final int MIN_HEX_ID_LENGTH = 16;
+    private static final int MIN_TOKEN_ID_LENGTH = 24;
+
+    private final boolean enabled;
+    private final int maxNames;
+    private final int generationSize;
+    private final String overflowName;
+    private final Set<String> names = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger namesCount = new AtomicInteger();
+
+    private volatile Map<String, String> young = new ConcurrentHashMap<>();
+    private volatile Map<String, String> old = Map.of();
+
+    OperationNameNormalizer(boolean enabled, int maxNames, int cacheSize, String overflowName) {
+        this.enabled = enabled;
+        this.maxNames = Math.max(1, maxNames);
+        this.generationSize = Math.max(1, cacheSize / 2);
+        this.overflowName = overflowName;
+    }
+
+    public static OperationNameNormalizer from(JaegerTracerConfiguration configuration) {
+        return new OperationNameNormalizer(
+            configuration.isOperationsNormalizationEnabled(),
+            configuration.getOperationsMaxNames(),
+            configuration.getOperationsCacheSize(),
+            configuration.getOperationsOverflowName()
+        );
+    }
+
+    public String normalize(String operation) {
+        if (!enabled || operation == null) {
+            return operation;
+        }
+
+        String normalized = young.get(operation);
+        if (normalized != null) {
+            return normalized;
+        }
+
+        normalized = old.get(operation);
+        if (normalized == null) {
+            normalized = bound(template(operation));
+        }
+        cache(operation, normalized);
+        return normalized;
+    }
+
+    private void cache(String operation, String normalized) {
+        Map<String, String> current = young;
+        if (current.size() >= generationSize) {
+            synchronized (this) {
+                if (young == current) {
+                    old = current;
+                    young = current = new ConcurrentHashMap<>();
+                } else {
+                    current = young;
+                }
+            }
+        }
+        current.put(operation, normalized);
+    }
+
+    private String bound(String name) {
+        if (names.contains(name)) {
+            return name;
+        }
+        if (namesCount.incrementAndGet() > maxNames) {
+            namesCount.decrementAndGet();
+            return overflowName;
+        }
+        if (!names.add(name)) {
+            namesCount.decrementAndGet();
+        }
+        return name;
+    }
+
+    static String template(String operation) {
+        int query = operation.indexOf('?');
+        String path = query < 0 ? operation : operation.substring(0, query);
+        if (path.indexOf('/') < 0) {
+            return path;
+        }
+
+        StringBuilder builder = null;
+        int start = 0;
+        int length = path.length();
+        while (start <= length) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (isIdentifier(path, start, end)) {
+                if (builder == null) {
+                    builder = new StringBuilder(length).append(path, 0, start);
+                }
+                builder.append(ID_TEMPLATE);
+            } else if (builder != null) {
+                builder.append(path, start, end);
+            }
+            if (end < length && builder != null) {
+                builder.append('/');
+            }
+            start = end + 1;
+        }
+        return builder == null ? path : builder.toString();
+    }
+
+    private static boolean isIdentifier(String path, int start, int end) {
+        int length = end - start;
+        if (length == 0) {
+            return false;
+        }
+
+        int digits = 0;
+        int hex = 0;
+        int letters = 0;
+        int dashes = 0;
+        for (int i = start; i < end; i++) {
+            char c = path.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+            } else if ((c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F')) {
+                hex++;
+            } else if ((c >= 'g' && c <= 'z') || (c >= 'G' && c <= 'Z')) {
+                letters++;
+            } else if (c == '-' || c == '_') {
+                dashes++;
+            } else {
+                return false;
+            }
+        }
+
+        if (digits == length) {
+            return true;
+        }
+        if (digits == 0) {
+            // words, even long ones, are part of the route
+            return false;
+        }
+        if (letters == 0 && (dashes == 0 || dashes == 4) && length - dashes >= MIN_HEX_ID_LENGTH) {
+            // hexadecimal ids and UUIDs
+            return true;
+        }
+        return length >= MIN_TOKEN_ID_LENGTH;
+    }
+}
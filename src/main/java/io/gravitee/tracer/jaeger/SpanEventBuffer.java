@@ -0,0 +1,108 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.sdk.common.Clock;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded ring buffer of the events recorded on a {@link JaegerSpan}, added to the span when it ends.
+ *
+ * Events are stored in primitive arrays, with at most one attribute of a primitive type each, so that recording one
+ * allocates nothing. Once the buffer is full, the oldest events are overwritten: the most recent milestones of a request
+ * are usually the ones explaining its latency. Timestamps are taken from a monotonic clock anchored to the wall clock
+ * when the buffer is created, as the SDK does for the spans. Not thread safe.
+ *
+ * @author GraviteeSource Team
+ */
+final class SpanEventBuffer {
+
+    static final AttributeKey<Long> DROPPED_EVENTS = AttributeKey.longKey("gravitee.events.dropped");
+
+    static final byte NO_VALUE = 0;
+    static final byte LONG_VALUE = 1;
+    static final byte DOUBLE_VALUE = 2;
+    static final byte BOOLEAN_VALUE = 3;
+
+    private final long anchorEpochNanos = Clock.getDefault().now();
+    private final long anchorNanoTime = System.nanoTime();
+
+    private final String[] names;
+    private final long[] timestamps;
+    private final String[] keys;
+    private final byte[] types;
+    private final long[] values;
+    private long count;
+
+    SpanEventBuffer(int capacity) {
+        this.names = new String[capacity];
+        this.timestamps = new long[capacity];
+        this.keys = new String[capacity];
+        this.types = new byte[capacity];
+        this.values = new long[capacity];
+    }
+
+    /**
+     * @param value the value of the attribute, doubles given by their raw bits and booleans as 0 or 1.
+     */
+    void add(String name, String key, byte type, long value) {
+        int slot = (int) (count % names.length);
+        names[slot] = name;
+        timestamps[slot] = anchorEpochNanos + (System.nanoTime() - anchorNanoTime);
+        keys[slot] = key;
+        types[slot] = key == null ? NO_VALUE : type;
+        values[slot] = value;
+        count++;
+    }
+
+    int size() {
+        return (int) Math.min(count, names.length);
+    }
+
+    long getDroppedEvents() {
+        return count - size();
+    }
+
+    /**
+     * Adds the buffered events to the span, oldest first.
+     */
+    void addTo(Span span) {
+        for (long i = count - size(); i < count; i++) {
+            int slot = (int) (i % names.length);
+            span.addEvent(names[slot], attributes(slot), timestamps[slot], TimeUnit.NANOSECONDS);
+        }
+        if (getDroppedEvents() > 0) {
+            span.setAttribute(DROPPED_EVENTS, getDroppedEvents());
+        }
+    }
+
+    private Attributes attributes(int slot) {
+        switch (types[slot]) {
+            case LONG_VALUE:
+                return Attributes.of(AttributeKey.longKey(keys[slot]), values[slot]);
+            case DOUBLE_VALUE:
+                return Attributes.of(AttributeKey.doubleKey(keys[slot]), Double.longBitsToDouble(values[slot]));
+            case BOOLEAN_VALUE:
+                return Attributes.of(AttributeKey.booleanKey(keys[slot]), values[slot] != 0);
+            case NO_VALUE:
+            default:
+                return Attributes.empty();
+        }
+    }
+}
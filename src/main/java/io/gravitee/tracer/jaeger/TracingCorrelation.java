@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger;
+
+import io.gravitee.tracer.jaeger.VertxContextStorageProvider.VertxContextStorage;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.context.Context;
+import io.vertx.core.Vertx;
+
+/**
+ * Gives the identifiers of the active span, to correlate log lines with traces.
+ *
+ * The span is read from the local data of the current Vert.x context, or from the current thread outside of Vert.x. Its
+ * identifiers are hexadecimal strings held by the span context, built once when the span is started or extracted from
+ * the request headers, so reading them allocates nothing.
+ *
+ * @author GraviteeSource Team
+ */
+public final class TracingCorrelation {
+
+    private TracingCorrelation() {}
+
+    /**
+     * @return the context of the active span, invalid when there is none.
+     */
+    public static SpanContext spanContext() {
+        return spanContext(Vertx.currentContext());
+    }
+
+    public static SpanContext spanContext(io.vertx.core.Context vertxContext) {
+        Context context = VertxContextStorage.INSTANCE.current(vertxContext);
+        return context == null ? SpanContext.getInvalid() : Span.fromContext(context).getSpanContext();
+    }
+
+    /**
+     * @return the trace id of the active span, or <code>null</code> when there is none.
+     */
+    public static String traceId() {
+        SpanContext spanContext = spanContext();
+        return spanContext.isValid() ? spanContext.getTraceId() : null;
+    }
+
+    /**
+     * @return the id of the active span, or <code>null</code> when there is none.
+     */
+    public static String spanId() {
+        SpanContext spanContext = spanContext();
+        return spanContext.isValid() ? spanContext.getSpanId() : null;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger;
+
+import io.gravitee.tracer.jaeger.VertxContextStorageProvider.VertxContextStorage;
+import io.opentelemetry.context.Context;
+import io.vertx.core.Vertx;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wrappers carrying the active tracing context over to the thread running a task, so that spans started by blocking
+ * code, plain executors or virtual threads are children of the span which submitted the task.
+ *
+ * The context is captured when the task is submitted, attached while it runs, then the previous context of the running
+ * thread is restored.
+ *
+ * @author GraviteeSource Team
+ */
+public final class TracingExecutors {
+
+    private TracingExecutors() {}
+
+    public static Runnable wrap(Runnable task) {
+        Context context = VertxContextStorage.INSTANCE.current();
+        if (context == null) {
+            return task;
+        }
+        return () -> {
+            io.vertx.core.Context vertxContext = Vertx.currentContext();
+            Context previous = VertxContextStorage.INSTANCE.swap(vertxContext, context);
+            try {
+                task.run();
+            } finally {
+                VertxContextStorage.INSTANCE.restore(vertxContext, previous);
+            }
+        };
+    }
+
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        Context context = VertxContextStorage.INSTANCE.current();
+        if (context == null) {
+            return task;
+        }
+        return () -> {
+            io.vertx.core.Context vertxContext = Vertx.currentContext();
+            Context previous = VertxContextStorage.INSTANCE.swap(vertxContext, context);
+            try {
+                return task.call();
+            } finally {
+                VertxContextStorage.INSTANCE.restore(vertxContext, previous);
+            }
+        };
+    }
+
+    public static Executor wrap(Executor executor) {
+        if (executor instanceof ContextExecutorService) {
+            return executor;
+        }
+        return task -> executor.execute(wrap(task));
+    }
+
+    public static ExecutorService wrap(ExecutorService executor) {
+        if (executor instanceof ContextExecutorService) {
+            return executor;
+        }
+        return new ContextExecutorService(executor);
+    }
+
+    /**
+     * Every submission method of {@link AbstractExecutorService} goes through {@link #execute(Runnable)}, which captures
+     * the context of the submitting thread.
+     */
+    private static final class ContextExecutorService extends AbstractExecutorService {
+
+        private final ExecutorService delegate;
+
+        private ContextExecutorService(ExecutorService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(wrap(command));
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger;
+
+import io.opentelemetry.context.ContextKey;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.vertx.core.tracing.TracingPolicy;
+
+/**
+ * A compiled tracing rule: the policy and the sampler it applies instead of the default ones.
+ *
+ * The rule matched for a request is handed to the sampler through the parent context of the span, under
+ * {@link #CONTEXT_KEY}.
+ *
+ * @author GraviteeSource Team
+ */
+public final class TracingRule {
+
+    public static final ContextKey<TracingRule> CONTEXT_KEY = ContextKey.named("gravitee-tracing-rule");
+
+    private final int index;
+    private final TracingPolicy policy;
+    private final Sampler sampler;
+
+    TracingRule(int index, TracingPolicy policy, Sampler sampler) {
+        this.index = index;
+        this.policy = policy;
+        this.sampler = sampler;
+    }
+
+    /**
+     * @return the position of the rule in the configuration, the first rules having precedence.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return the policy to apply, or <code>null</code> to keep the one given by Vert.x.
+     */
+    public TracingPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return the sampler to apply, or <code>null</code> to keep the configured one.
+     */
+    public Sampler getSampler() {
+        return sampler;
+    }
+
+    public TracingPolicy apply(TracingPolicy defaultPolicy) {
+        return policy == null ? defaultPolicy : policy;
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger;
+
+import io.gravitee.tracer.jaeger.configuration.JaegerTracerConfiguration;
+import io.gravitee.tracer.jaeger.configuration.TracingRuleConfiguration;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.vertx.core.spi.tracing.TagExtractor;
+import io.vertx.core.tracing.TracingPolicy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the {@link TracingRule} applying to a request.
+ *
+ * The rules are compiled once into hash lookups, by operation name and by attribute value, and into a trie of path
+ * segments, so that matching a request costs the same whatever the number of rules: one lookup for the operation name,
+ * one per tag for the attributes and one per path segment for the path. Among the path rules the longest prefix is
+ * selected; when rules of different kinds match, the first configured one applies.
+ *
+ * The path is read from the <code>http.url</code> tag, which holds the absolute URI of the request.
+ *
+ * @author GraviteeSource Team
+ */
+public final class TracingRules {
+
+    static final String URL_TAG = "http.url";
+
+    private final Map<String, TracingRule> operations = new HashMap<>();
+    private final Map<String, Map<String, TracingRule>> attributes = new HashMap<>();
+    private final PathNode paths = new PathNode();
+    private final boolean empty;
+    private final boolean pathRules;
+    private final boolean overridesIgnore;
+
+    TracingRules(List<TracingRuleConfiguration> rules) {
+        boolean hasPathRules = false;
+        boolean hasTracingPolicies = false;
+        for (int index = 0; index < rules.size(); index++) {
+            TracingRuleConfiguration configuration = rules.get(index);
+            TracingRule rule = new TracingRule(index, policy(configuration.getPolicy()), sampler(configuration.getSamplingRate()));
+            hasTracingPolicies |= rule.getPolicy() != null && rule.getPolicy() != TracingPolicy.IGNORE;
+
+            if (configuration.getAttribute() != null) {
+                if (configuration.getValue() == null) {
+                    throw new IllegalArgumentException("Tracing rule " + index + " has an attribute but no value");
+                }
+                attributes
+                    .computeIfAbsent(configuration.getAttribute(), name -> new HashMap<>())
+                    .putIfAbsent(configuration.getValue(), rule);
+            } else if (configuration.getPath() != null) {
+                paths.insert(configuration.getPath(), rule);
+                hasPathRules = true;
+            } else if (configuration.getOperation() != null) {
+                operations.putIfAbsent(configuration.getOperation(), rule);
+            } else {
+                throw new IllegalArgumentException("Tracing rule " + index + " has neither an attribute, a path nor an operation");
+            }
+        }
+        this.empty = rules.isEmpty();
+        this.pathRules = hasPathRules;
+        this.overridesIgnore = hasTracingPolicies;
+    }
+
+    public static TracingRules from(JaegerTracerConfiguration configuration) {
+        return new TracingRules(configuration.getRules());
+    }
+
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * @return <code>true</code> when a rule may trace a request that Vert.x asks to ignore, so that ignored requests only
+     * need to be matched in that case.
+     */
+    public boolean overridesIgnore() {
+        return overridesIgnore;
+    }
+
+    /**
+     * @return the rule applying to the request, or <code>null</code> when none does.
+     */
+    public <R> TracingRule match(String operation, R request, TagExtractor<R> tagExtractor) {
+        if (empty) {
+            return null;
+        }
+
+        TracingRule matched = operation == null ? null : operations.get(operation);
+        if ((!attributes.isEmpty() || pathRules) && request != null) {
+            int len = tagExtractor.len(request);
+            for (int idx = 0; idx < len; idx++) {
+                String name = tagExtractor.name(request, idx);
+                Map<String, TracingRule> byValue = attributes.get(name);
+                if (byValue != null) {
+                    matched = first(matched, byValue.get(tagExtractor.value(request, idx)));
+                }
+                if (pathRules && URL_TAG.equals(name)) {
+                    matched = first(matched, paths.match(tagExtractor.value(request, idx)));
+                }
+            }
+        }
+        return matched;
+    }
+
+    private static TracingRule first(TracingRule matched, TracingRule candidate) {
+        if (matched == null) {
+            return candidate;
+        }
+        return candidate == null || matched.getIndex() < candidate.getIndex() ? matched : candidate;
+    }
+
+    private static TracingPolicy policy(String policy) {
+        if (policy == null) {
+            return null;
+        }
+        return Arrays
+            .stream(TracingPolicy.values())
+            .filter(value -> value.name().equalsIgnoreCase(policy))
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("Unsupported tracing policy: " + policy));
+    }
+
+    private static Sampler sampler(Double samplingRate) {
+        return samplingRate == null ? null : Sampler.traceIdRatioBased(Math.max(0, Math.min(1, samplingRate)));
+    }
+
+    /**
+     * @return the index at which the path of an absolute or relative URI starts.
+     */
+    static int pathStart(String uri) {
+        int start = uri.indexOf("://");
+        if (start < 0) {
+            return 0;
+        }
+        start = uri.indexOf('/', start + 3);
+        return start < 0 ? uri.length() : start;
+    }
+
+    /**
+     * Node of the trie of path segments.
+     *
+     * The children are kept in an open addressing table, so that a segment of the path is looked up in place, without
+     * being copied into a string.
+     */
+    private static final class PathNode {
+
+        private String[] segments;
+        private PathNode[] children;
+        private int size;
+        private TracingRule rule;
+
+        void insert(String prefix, TracingRule rule) {
+            PathNode node = this;
+            for (String segment : prefix.split("/")) {
+                if (!segment.isEmpty()) {
+                    node = node.child(segment);
+                }
+            }
+            if (node.rule == null) {
+                node.rule = rule;
+            }
+        }
+
+        TracingRule match(String uri) {
+            if (uri == null) {
+                return rule;
+            }
+
+            PathNode node = this;
+            TracingRule matched = rule;
+            int length = uri.length();
+            int start = pathStart(uri);
+            while (start < length) {
+                int end = start;
+                char c;
+                while (end < length && (c = uri.charAt(end)) != '/' && c != '?' && c != '#') {
+                    end++;
+                }
+                if (end > start) {
+                    node = node.get(uri, start, end);
+                    if (node == null) {
+                        break;
+                    }
+                    if (node.rule != null) {
+                        matched = node.rule;
+                    }
+                }
+                if (end == length || uri.charAt(end) != '/') {
+                    break;
+                }
+                start = end + 1;
+            }
+            return matched;
+        }
+
+        private PathNode child(String segment) {
+            PathNode child = get(segment, 0, segment.length());
+            if (child == null) {
+                if (segments == null || (size + 1) * 2 > segments.length) {
+                    resize();
+                }
+                child = new PathNode();
+                put(segment, child);
+            }
+            return child;
+        }
+
+        private PathNode get(String path, int start, int end) {
+            if (size == 0) {
+                return null;
+            }
+
+            int length = end - start;
+            int mask = segments.length - 1;
+            for (int i = hash(path, start, end) & mask; segments[i] != null; i = (i + 1) & mask) {
+                String segment = segments[i];
+                if (segment.length() == length && path.regionMatches(start, segment, 0, length)) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private void put(String segment, PathNode child) {
+            int mask = segments.length - 1;
+            int i = hash(segment, 0, segment.length()) & mask;
+            while (segments[i] != null) {
+                i = (i + 1) & mask;
+            }
+            segments[i] = segment;
+            children[i] = child;
+            size++;
+        }
+
+        private void resize() {
+            String[] previousSegments = segments;
+            PathNode[] previousChildren = children;
+            segments = new String[previousSegments == null ? 4 : previousSegments.length * 2];
+            children = new PathNode[segments.length];
+            size = 0;
+            if (previousSegments != null) {
+                for (int i = 0; i < previousSegments.length; i++) {
+                    if (previousSegments[i] != null) {
+                        put(previousSegments[i], previousChildren[i]);
+                    }
+                }
+            }
+        }
+
+        private static int hash(String path, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + path.charAt(i);
+            }
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
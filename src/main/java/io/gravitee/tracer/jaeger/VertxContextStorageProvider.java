@@ -20,10 +20,27 @@ import io.opentelemetry.context.ContextStorage;
 import io.opentelemetry.context.ContextStorageProvider;
 import io.opentelemetry.context.Scope;
 import io.vertx.core.Vertx;
+import io.vertx.core.impl.ContextInternal;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Stores the active tracing context in the local data of the current Vert.x context when it is a duplicated one, such as
+ * the context created for each request. Event loop and worker contexts are shared by every request they run, so threads
+ * running on them, like threads running without any Vert.x context (plain executors, virtual threads...), fall back to a
+ * thread local, so that spans started there still have a parent. See {@link TracingExecutors} to carry the context over
+ * to such threads.
+ */
 public class VertxContextStorageProvider implements ContextStorageProvider {
 
-    static String ACTIVE_CONTEXT = "tracing.context";
+    /**
+     * Keys of the active tracing context and of its scope in the Vert.x context local data. Being compared by identity,
+     * they are cheaper to look up than string keys.
+     */
+    enum LocalKey {
+        ACTIVE_CONTEXT,
+        SCOPE,
+    }
 
     @Override
     public ContextStorage get() {
@@ -33,24 +50,55 @@ public class VertxContextStorageProvider implements ContextStorageProvider {
     enum VertxContextStorage implements ContextStorage {
         INSTANCE;
 
+        private static final ThreadLocal<Context> THREAD_CONTEXT = new ThreadLocal<>();
+        private static final ThreadLocal<RestoreScope> THREAD_SCOPE = ThreadLocal.withInitial(() -> new RestoreScope(null));
+
         @Override
         public Scope attach(Context toAttach) {
             return attach(Vertx.currentContext(), toAttach);
         }
 
+        /**
+         * The returned scope is shared by the scopes opened on the same duplicated context, or on the same thread, so
+         * attaching does not allocate. It restores the previous contexts in turn, the scopes being closed in the reverse
+         * order of their opening, as OpenTelemetry requires.
+         */
         public Scope attach(io.vertx.core.Context vertxCtx, Context toAttach) {
-            Context current = vertxCtx.getLocal(ACTIVE_CONTEXT);
+            Context current = swap(vertxCtx, toAttach);
 
             if (current == toAttach) {
                 return Scope.noop();
             }
+            RestoreScope scope = scope(vertxCtx);
+            scope.push(current);
+            return scope;
+        }
 
-            vertxCtx.putLocal(ACTIVE_CONTEXT, toAttach);
+        /**
+         * Make the given tracing context the active one, without creating any {@link Scope}.
+         *
+         * @return the previously active tracing context, to give back to {@link #restore(io.vertx.core.Context, Context)}.
+         */
+        public Context swap(io.vertx.core.Context vertxCtx, Context toAttach) {
+            if (!isDuplicate(vertxCtx)) {
+                Context current = THREAD_CONTEXT.get();
+                if (toAttach == null) {
+                    THREAD_CONTEXT.remove();
+                } else {
+                    THREAD_CONTEXT.set(toAttach);
+                }
+                return current;
+            }
 
-            if (current == null) {
-                return () -> vertxCtx.removeLocal(ACTIVE_CONTEXT);
+            ConcurrentMap<Object, Object> localData = localData(vertxCtx);
+            if (toAttach == null) {
+                return (Context) localData.remove(LocalKey.ACTIVE_CONTEXT);
             }
-            return () -> vertxCtx.putLocal(ACTIVE_CONTEXT, current);
+            return (Context) localData.put(LocalKey.ACTIVE_CONTEXT, toAttach);
+        }
+
+        public void restore(io.vertx.core.Context vertxCtx, Context previous) {
+            swap(vertxCtx, previous);
         }
 
         @Override
@@ -60,10 +108,10 @@ public class VertxContextStorageProvider implements ContextStorageProvider {
         }
 
         public Context current(io.vertx.core.Context vertxCtx) {
-            if (vertxCtx == null) {
-                return null;
+            if (!isDuplicate(vertxCtx)) {
+                return THREAD_CONTEXT.get();
             }
-            return vertxCtx.getLocal(ACTIVE_CONTEXT);
+            return (Context) localData(vertxCtx).get(LocalKey.ACTIVE_CONTEXT);
         }
 
         public void clear() {
@@ -72,9 +120,66 @@ public class VertxContextStorageProvider implements ContextStorageProvider {
         }
 
         public void clear(io.vertx.core.Context vertxCtx) {
-            if (vertxCtx != null) {
-                vertxCtx.removeLocal(ACTIVE_CONTEXT);
+            if (isDuplicate(vertxCtx)) {
+                localData(vertxCtx).remove(LocalKey.ACTIVE_CONTEXT);
+            } else {
+                THREAD_CONTEXT.remove();
+            }
+        }
+
+        private static RestoreScope scope(io.vertx.core.Context vertxCtx) {
+            if (!isDuplicate(vertxCtx)) {
+                return THREAD_SCOPE.get();
+            }
+
+            ConcurrentMap<Object, Object> localData = localData(vertxCtx);
+            RestoreScope scope = (RestoreScope) localData.get(LocalKey.SCOPE);
+            if (scope == null) {
+                scope = new RestoreScope(vertxCtx);
+                localData.put(LocalKey.SCOPE, scope);
+            }
+            return scope;
+        }
+
+        // duplicated contexts, such as the ones created for each request, own their local data and do not share it
+        private static boolean isDuplicate(io.vertx.core.Context vertxCtx) {
+            return vertxCtx != null && ((ContextInternal) vertxCtx).isDuplicate();
+        }
+
+        private static ConcurrentMap<Object, Object> localData(io.vertx.core.Context vertxCtx) {
+            return ((ContextInternal) vertxCtx).localContextData();
+        }
+    }
+
+    /**
+     * Stack of the contexts to restore, used by a single thread at a time: a duplicated context only runs on one thread
+     * at once, and the other ones are thread local.
+     */
+    private static final class RestoreScope implements Scope {
+
+        private final io.vertx.core.Context vertxCtx;
+        private Context[] previous = new Context[4];
+        private int depth;
+
+        private RestoreScope(io.vertx.core.Context vertxCtx) {
+            this.vertxCtx = vertxCtx;
+        }
+
+        private void push(Context context) {
+            if (depth == previous.length) {
+                previous = Arrays.copyOf(previous, depth * 2);
+            }
+            previous[depth++] = context;
+        }
+
+        @Override
+        public void close() {
+            if (depth == 0) {
+                return;
             }
+            Context context = previous[--depth];
+            previous[depth] = null;
+            VertxContextStorage.INSTANCE.restore(vertxCtx, context);
         }
     }
 }
@@ -104,6 +104,352 @@ public class JaegerTracerConfiguration {
     @Value("${services.tracing.jaeger.port:14250}")
     private int port;
 
+    /**
+     * Collector endpoints (host:port) to balance the spans across. When empty, host and port are used.
+     */
+    private List<String> endpoints;
+
+    /**
+     * Load balancing strategy across the collector endpoints. (round-robin, least-requests)
+     */
+    @Value("${services.tracing.jaeger.loadBalancing.strategy:round-robin}")
+    @Builder.Default
+    private String loadBalancingStrategy = "round-robin";
+
+    /**
+     * Resolve each endpoint host name to all its addresses and balance across them.
+     */
+    @Value("${services.tracing.jaeger.loadBalancing.resolveDns:false}")
+    private boolean loadBalancingResolveDns;
+
+    /**
+     * Interval (in milliseconds) between two resolutions of the endpoint host names.
+     */
+    @Value("${services.tracing.jaeger.loadBalancing.dnsRefreshInterval:30000}")
+    @Builder.Default
+    private long loadBalancingDnsRefreshInterval = 30000;
+
+    /**
+     * Number of consecutive failed exports after which a collector is ejected.
+     */
+    @Value("${services.tracing.jaeger.loadBalancing.ejection.consecutiveFailures:3}")
+    @Builder.Default
+    private int loadBalancingEjectionConsecutiveFailures = 3;
+
+    /**
+     * Time (in milliseconds) during which an ejected collector does not receive any span.
+     */
+    @Value("${services.tracing.jaeger.loadBalancing.ejection.duration:30000}")
+    @Builder.Default
+    private long loadBalancingEjectionDuration = 30000;
+
+    /**
+     * Protocol used to export the spans. (jaeger, otlp-grpc, otlp-http)
+     */
+    @Value("${services.tracing.jaeger.protocol:jaeger}")
+    @Builder.Default
+    private String protocol = "jaeger";
+
+    /**
+     * Compression applied to the exported payloads. (gzip, none)
+     */
+    @Value("${services.tracing.jaeger.compression:gzip}")
+    @Builder.Default
+    private String compression = "gzip";
+
+    /**
+     * Generator of the trace and span ids. (random, fast, time)
+     */
+    @Value("${services.tracing.jaeger.ids.generator:random}")
+    @Builder.Default
+    private String idGenerator = "random";
+
+    /**
+     * Maximum number of spans kept in memory while waiting to be exported.
+     */
+    @Value("${services.tracing.jaeger.batch.maxQueueSize:2048}")
+    @Builder.Default
+    private int batchMaxQueueSize = 2048;
+
+    /**
+     * Number of stripes the export queue is split into, so that event loops do not contend when ending spans. 0 uses
+     * twice the number of available processors, which is the default number of Vert.x event loops.
+     */
+    @Value("${services.tracing.jaeger.batch.queueStripes:0}")
+    private int batchQueueStripes;
+
+    /**
+     * Maximum number of spans sent to Jaeger in a single export call.
+     */
+    @Value("${services.tracing.jaeger.batch.maxExportBatchSize:512}")
+    @Builder.Default
+    private int batchMaxExportBatchSize = 512;
+
+    /**
+     * Maximum delay (in milliseconds) between two exports.
+     */
+    @Value("${services.tracing.jaeger.batch.scheduleDelay:5000}")
+    @Builder.Default
+    private long batchScheduleDelay = 5000;
+
+    /**
+     * Maximum time (in milliseconds) an export call is allowed to run before being cancelled.
+     */
+    @Value("${services.tracing.jaeger.batch.exportTimeout:30000}")
+    @Builder.Default
+    private long batchExportTimeout = 30000;
+
+    /**
+     * Maximum time (in milliseconds) the tracer waits, when it stops, for the pending spans to be exported.
+     */
+    @Value("${services.tracing.jaeger.shutdownTimeout:10000}")
+    @Builder.Default
+    private long shutdownTimeout = 10000;
+
+    /**
+     * Grow the batch size and shorten the schedule delay as span throughput rises.
+     */
+    @Value("${services.tracing.jaeger.batch.adaptive.enabled:false}")
+    private boolean batchAdaptiveEnabled;
+
+    /**
+     * Upper bound of the export batch size when adaptive batching is enabled.
+     */
+    @Value("${services.tracing.jaeger.batch.adaptive.maxExportBatchSize:4096}")
+    @Builder.Default
+    private int batchAdaptiveMaxExportBatchSize = 4096;
+
+    /**
+     * Lower bound of the schedule delay (in milliseconds) when adaptive batching is enabled.
+     */
+    @Value("${services.tracing.jaeger.batch.adaptive.minScheduleDelay:200}")
+    @Builder.Default
+    private long batchAdaptiveMinScheduleDelay = 200;
+
+    /**
+     * Maximum estimated size (in bytes) of the spans waiting in the export queue. Extra spans are dropped, 0 disables it.
+     */
+    @Value("${services.tracing.jaeger.batch.maxQueueMemory:0}")
+    private long batchMaxQueueMemory;
+
+    /**
+     * Maximum number of attributes recorded on a span.
+     */
+    @Value("${services.tracing.jaeger.limits.maxAttributes:128}")
+    @Builder.Default
+    private int limitsMaxAttributes = 128;
+
+    /**
+     * Maximum number of events, including the recorded exceptions, on a span.
+     */
+    @Value("${services.tracing.jaeger.limits.maxEvents:128}")
+    @Builder.Default
+    private int limitsMaxEvents = 128;
+
+    /**
+     * Maximum number of links on a span.
+     */
+    @Value("${services.tracing.jaeger.limits.maxLinks:128}")
+    @Builder.Default
+    private int limitsMaxLinks = 128;
+
+    /**
+     * Maximum number of attributes recorded on a span event.
+     */
+    @Value("${services.tracing.jaeger.limits.maxAttributesPerEvent:128}")
+    @Builder.Default
+    private int limitsMaxAttributesPerEvent = 128;
+
+    /**
+     * Maximum length of an attribute value, longer values (urls, headers, stack traces...) are truncated.
+     */
+    @Value("${services.tracing.jaeger.limits.maxAttributeValueLength:8192}")
+    @Builder.Default
+    private int limitsMaxAttributeValueLength = 8192;
+
+    /**
+     * Maximum number of events buffered on a span started by the gateway, the oldest ones being overwritten. 0 disables them.
+     */
+    @Value("${services.tracing.jaeger.events.bufferSize:32}")
+    @Builder.Default
+    private int eventsBufferSize = 32;
+
+    /**
+     * Aggregate the rate, errors and duration of all the spans, sampled or not, per operation and publish them as metrics.
+     */
+    @Value("${services.tracing.jaeger.red.enabled:false}")
+    private boolean redEnabled;
+
+    /**
+     * Maximum number of operation and span kind pairs the RED metrics are aggregated for. Other operations share a series.
+     */
+    @Value("${services.tracing.jaeger.red.maxOperations:1000}")
+    @Builder.Default
+    private int redMaxOperations = 1000;
+
+    /**
+     * Replace the identifiers found in operation names by a template, and bound the number of distinct operation names.
+     * Disabled by default, as it changes the operation names reported to Jaeger.
+     */
+    @Value("${services.tracing.jaeger.operations.normalize:false}")
+    @Builder.Default
+    private boolean operationsNormalizationEnabled = false;
+
+    /**
+     * Maximum number of distinct operation names, the next ones being replaced by the overflow name.
+     */
+    @Value("${services.tracing.jaeger.operations.maxNames:1000}")
+    @Builder.Default
+    private int operationsMaxNames = 1000;
+
+    /**
+     * Number of raw operation names whose normalized name is cached.
+     */
+    @Value("${services.tracing.jaeger.operations.cacheSize:10000}")
+    @Builder.Default
+    private int operationsCacheSize = 10000;
+
+    /**
+     * Name given to the operations beyond the maximum number of distinct names.
+     */
+    @Value("${services.tracing.jaeger.operations.overflowName:other}")
+    @Builder.Default
+    private String operationsOverflowName = "other";
+
+    /**
+     * Formats the trace context is read from and written to. (tracecontext, baggage, jaeger, b3, b3multi)
+     */
+    private List<String> propagators;
+
+    /**
+     * Tags extracted before the span is started, so that the sampler can base its decision on them.
+     */
+    private List<String> samplingAttributes;
+
+    /**
+     * Tags extracted on recorded spans. When empty, all the tags are extracted.
+     */
+    private List<String> includedAttributes;
+
+    /**
+     * Tags never extracted on recorded spans.
+     */
+    private List<String> excludedAttributes;
+
+    /**
+     * Persist the spans which cannot be exported or queued to disk, and replay them once the collector is back.
+     */
+    @Value("${services.tracing.jaeger.spill.enabled:false}")
+    private boolean spillEnabled;
+
+    /**
+     * Directory holding the spill segments. Defaults to a sub directory of the temporary directory.
+     */
+    @Value("${services.tracing.jaeger.spill.directory:#{null}}")
+    private String spillDirectory;
+
+    /**
+     * Maximum size (in bytes) of the spill segments on disk, extra spans are dropped.
+     */
+    @Value("${services.tracing.jaeger.spill.maxSize:104857600}")
+    @Builder.Default
+    private long spillMaxSize = 104857600;
+
+    /**
+     * Size (in bytes) of a single memory-mapped spill segment.
+     */
+    @Value("${services.tracing.jaeger.spill.segmentSize:8388608}")
+    @Builder.Default
+    private int spillSegmentSize = 8388608;
+
+    /**
+     * Delay (in milliseconds) before replaying the spilled spans again after a failed export.
+     */
+    @Value("${services.tracing.jaeger.spill.replayInterval:5000}")
+    @Builder.Default
+    private long spillReplayInterval = 5000;
+
+    /**
+     * Head sampler type. (const, probabilistic, ratelimiting, remote)
+     */
+    @Value("${services.tracing.jaeger.sampler.type:const}")
+    @Builder.Default
+    private String samplerType = "const";
+
+    /**
+     * Head sampler parameter: 0 or 1 for const, a ratio for probabilistic, a number of traces per second for ratelimiting,
+     * the ratio applied until the strategy is loaded for remote.
+     */
+    @Value("${services.tracing.jaeger.sampler.param:1}")
+    @Builder.Default
+    private double samplerParam = 1;
+
+    /**
+     * Follow the sampling decision of the parent span when there is one.
+     */
+    @Value("${services.tracing.jaeger.sampler.parentBased:true}")
+    @Builder.Default
+    private boolean samplerParentBased = true;
+
+    /**
+     * Jaeger sampling endpoint the remote sampler polls, the service name being added as a query parameter.
+     */
+    @Value("${services.tracing.jaeger.sampler.remote.url:http://localhost:5778/sampling}")
+    @Builder.Default
+    private String samplerRemoteUrl = "http://localhost:5778/sampling";
+
+    /**
+     * File the remote sampler reads its strategy from, in the format of the Jaeger sampling endpoint, instead of the url.
+     */
+    @Value("${services.tracing.jaeger.sampler.remote.file:#{null}}")
+    private String samplerRemoteFile;
+
+    /**
+     * Delay (in milliseconds) between two loads of the remote sampling strategy.
+     */
+    @Value("${services.tracing.jaeger.sampler.remote.refreshInterval:60000}")
+    @Builder.Default
+    private long samplerRemoteRefreshInterval = 60000;
+
+    /**
+     * Buffer ended spans by trace and only export the traces that are in error or slow.
+     */
+    @Value("${services.tracing.jaeger.tail.enabled:false}")
+    private boolean tailSamplingEnabled;
+
+    /**
+     * Time (in milliseconds) to wait for the spans of a trace before taking the sampling decision.
+     */
+    @Value("${services.tracing.jaeger.tail.decisionWait:5000}")
+    @Builder.Default
+    private long tailSamplingDecisionWait = 5000;
+
+    /**
+     * Maximum number of traces held in memory while waiting for a decision.
+     */
+    @Value("${services.tracing.jaeger.tail.maxTraces:10000}")
+    @Builder.Default
+    private int tailSamplingMaxTraces = 10000;
+
+    /**
+     * Traces having a span lasting longer than this threshold (in milliseconds) are kept.
+     */
+    @Value("${services.tracing.jaeger.tail.latencyThreshold:1000}")
+    @Builder.Default
+    private long tailSamplingLatencyThreshold = 1000;
+
+    /**
+     * Ratio of the remaining (neither in error nor slow) traces which are kept.
+     */
+    @Value("${services.tracing.jaeger.tail.baselineRatio:0.01}")
+    @Builder.Default
+    private double tailSamplingBaselineRatio = 0.01;
+
+    /**
+     * Rules overriding the tracing policy and the sampling rate of some requests. The first matching rule applies.
+     */
+    private List<TracingRuleConfiguration> rules;
+
     private Environment environment;
 
     @Autowired
@@ -113,13 +459,13 @@ public class JaegerTracerConfiguration {
 
     public List<String> getKeystorePemCerts() {
         if (keystorePemCerts == null) {
-            keystorePemCerts = initializeKeystorePemCerts("services.tracing.jaeger.ssl.keystore.certs[%s]");
+            keystorePemCerts = initializeListProperty("services.tracing.jaeger.ssl.keystore.certs[%s]");
         }
 
         return keystorePemCerts;
     }
 
-    private List<String> initializeKeystorePemCerts(String property) {
+    private List<String> initializeListProperty(String property) {
         String key = String.format(property, 0);
         List<String> values = new ArrayList<>();
 
@@ -133,9 +479,85 @@ public class JaegerTracerConfiguration {
 
     public List<String> getKeystorePemKeys() {
         if (keystorePemKeys == null) {
-            keystorePemKeys = initializeKeystorePemCerts("services.tracing.jaeger.ssl.keystore.keys[%s]");
+            keystorePemKeys = initializeListProperty("services.tracing.jaeger.ssl.keystore.keys[%s]");
         }
 
         return keystorePemKeys;
     }
+
+    public List<String> getEndpoints() {
+        if (endpoints == null) {
+            endpoints = environment == null ? List.of() : initializeListProperty("services.tracing.jaeger.endpoints[%s]");
+        }
+
+        return endpoints;
+    }
+
+    public List<String> getSamplingAttributes() {
+        if (samplingAttributes == null) {
+            samplingAttributes =
+                environment == null ? List.of() : initializeListProperty("services.tracing.jaeger.attributes.sampling[%s]");
+        }
+
+        return samplingAttributes;
+    }
+
+    public List<String> getIncludedAttributes() {
+        if (includedAttributes == null) {
+            includedAttributes = environment == null ? List.of() : initializeListProperty("services.tracing.jaeger.attributes.include[%s]");
+        }
+
+        return includedAttributes;
+    }
+
+    public List<String> getExcludedAttributes() {
+        if (excludedAttributes == null) {
+            excludedAttributes = environment == null ? List.of() : initializeListProperty("services.tracing.jaeger.attributes.exclude[%s]");
+        }
+
+        return excludedAttributes;
+    }
+
+    public List<String> getPropagators() {
+        if (propagators == null || propagators.isEmpty()) {
+            List<String> configured = environment == null ? List.of() : initializeListProperty("services.tracing.jaeger.propagators[%s]");
+            propagators = configured.isEmpty() ? List.of("tracecontext") : configured;
+        }
+
+        return propagators;
+    }
+
+    public List<TracingRuleConfiguration> getRules() {
+        if (rules == null) {
+            rules = environment == null ? List.of() : initializeRules();
+        }
+
+        return rules;
+    }
+
+    private List<TracingRuleConfiguration> initializeRules() {
+        List<TracingRuleConfiguration> values = new ArrayList<>();
+
+        String prefix = "services.tracing.jaeger.rules[0].";
+        while (
+            environment.containsProperty(prefix + "attribute") ||
+            environment.containsProperty(prefix + "path") ||
+            environment.containsProperty(prefix + "operation")
+        ) {
+            values.add(
+                TracingRuleConfiguration
+                    .builder()
+                    .attribute(environment.getProperty(prefix + "attribute"))
+                    .value(environment.getProperty(prefix + "value"))
+                    .path(environment.getProperty(prefix + "path"))
+                    .operation(environment.getProperty(prefix + "operation"))
+                    .policy(environment.getProperty(prefix + "policy"))
+                    .samplingRate(environment.getProperty(prefix + "samplingRate", Double.class))
+                    .build()
+            );
+            prefix = "services.tracing.jaeger.rules[" + values.size() + "].";
+        }
+
+        return values;
+    }
 }
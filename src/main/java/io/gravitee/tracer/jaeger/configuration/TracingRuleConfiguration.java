@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.configuration;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A tracing rule, overriding the tracing policy and the sampling rate of the requests it selects.
+ *
+ * A rule selects the requests having a given attribute value (such as the API or the plan they belong to), the ones
+ * whose path starts with a given prefix, or the ones with a given operation name.
+ *
+ * @author GraviteeSource Team
+ */
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class TracingRuleConfiguration {
+
+    /**
+     * Attribute (tag) the value is matched against.
+     */
+    private String attribute;
+
+    /**
+     * Value the attribute must have.
+     */
+    private String value;
+
+    /**
+     * Prefix, made of whole segments, of the request path.
+     */
+    private String path;
+
+    /**
+     * Operation name.
+     */
+    private String operation;
+
+    /**
+     * Tracing policy applied instead of the one given by Vert.x. (ignore, propagate, always)
+     */
+    private String policy;
+
+    /**
+     * Sampling rate applied instead of the configured sampler, between 0 and 1.
+     */
+    private Double samplingRate;
+}
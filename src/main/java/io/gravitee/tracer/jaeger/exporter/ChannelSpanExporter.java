@@ -0,0 +1,56 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.exporter;
+
+import io.grpc.ManagedChannel;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import java.util.Collection;
+
+/**
+ * Shuts down the gRPC channel given to an OpenTelemetry exporter along with it, as exporters leave the channels they
+ * did not create open. The channel shutdown is graceful: in-flight calls complete, new ones are rejected.
+ *
+ * @author GraviteeSource Team
+ */
+final class ChannelSpanExporter implements SpanExporter {
+
+    private final SpanExporter delegate;
+    private final ManagedChannel channel;
+
+    ChannelSpanExporter(SpanExporter delegate, ManagedChannel channel) {
+        this.delegate = delegate;
+        this.channel = channel;
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> spans) {
+        return delegate.export(spans);
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return delegate.flush();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        CompletableResultCode result = delegate.shutdown();
+        result.whenComplete(channel::shutdown);
+        return result;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.exporter;
+
+import java.util.Objects;
+
+/**
+ * Address of a collector the spans are exported to.
+ *
+ * @author GraviteeSource Team
+ */
+public final class CollectorEndpoint {
+
+    private final String host;
+    private final int port;
+    private final String authority;
+
+    public CollectorEndpoint(String host, int port) {
+        this(host, port, host);
+    }
+
+    /**
+     * @param host the host name or address to connect to.
+     * @param port the port to connect to.
+     * @param authority the host name expected by the collector (TLS server name), when connecting to a resolved address.
+     */
+    public CollectorEndpoint(String host, int port, String authority) {
+        this.host = host;
+        this.port = port;
+        this.authority = authority;
+    }
+
+    /**
+     * Parse a <code>host:port</code> endpoint, using the given default port when none is specified.
+     */
+    public static CollectorEndpoint parse(String endpoint, int defaultPort) {
+        String value = endpoint.trim();
+        int separator = value.lastIndexOf(':');
+        // IPv6 addresses must be written between brackets to carry a port
+        if ((separator > 0 && value.indexOf(':') == separator) || (value.startsWith("[") && value.lastIndexOf(']') < separator)) {
+            String host = value.substring(0, separator);
+            return new CollectorEndpoint(unbracket(host), Integer.parseInt(value.substring(separator + 1)));
+        }
+        return new CollectorEndpoint(unbracket(value), defaultPort);
+    }
+
+    private static String unbracket(String host) {
+        return host.startsWith("[") && host.endsWith("]") ? host.substring(1, host.length() - 1) : host;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public String getAuthority() {
+        return authority;
+    }
+
+    public boolean isResolved() {
+        return !host.equals(authority);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CollectorEndpoint that = (CollectorEndpoint) o;
+        return port == that.port && host.equals(that.host) && authority.equals(that.authority);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(host, port, authority);
+    }
+
+    @Override
+    public String toString() {
+        return isResolved() ? authority + "/" + host + ":" + port : host + ":" + port;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.exporter;
+
+import java.util.Arrays;
+
+/**
+ * @author GraviteeSource Team
+ */
+public enum ExporterProtocol {
+    JAEGER("jaeger"),
+    OTLP_GRPC("otlp-grpc"),
+    OTLP_HTTP("otlp-http");
+
+    private final String value;
+
+    ExporterProtocol(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public static ExporterProtocol fromValue(String value) {
+        return Arrays
+            .stream(values())
+            .filter(protocol -> protocol.value.equalsIgnoreCase(value))
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("Unsupported Jaeger exporter protocol: " + value));
+    }
+}
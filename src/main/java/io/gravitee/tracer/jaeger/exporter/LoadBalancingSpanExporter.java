@@ -0,0 +1,291 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.exporter;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Spreads span exports across several collectors, each one having its own exporter.
+ *
+ * Collectors are picked either in turn (round-robin) or by lowest number of exports in flight (least-requests). A
+ * collector failing a given number of consecutive exports is ejected for a while, and a failed export is retried once
+ * on each of the other collectors, so that the share of a collector which is down goes to the others instead of being
+ * lost. When every collector is ejected, they are all used again rather than dropping everything. Retries stop once the
+ * export timeout has elapsed or the caller gave up on the export, since the spans may then have been spilled already.
+ *
+ * The list of collectors can be refreshed periodically (e.g. from DNS), the exporters of the collectors which
+ * disappeared being shut down.
+ *
+ * @author GraviteeSource Team
+ */
+@Slf4j
+public class LoadBalancingSpanExporter implements SpanExporter {
+
+    private static final String REFRESH_THREAD_NAME = "gio-tracer-jaeger-lb";
+
+    private final Function<CollectorEndpoint, SpanExporter> exporterFactory;
+    private final LoadBalancingStrategy strategy;
+    private final int ejectionConsecutiveFailures;
+    private final long ejectionDurationNanos;
+    private final long exportTimeoutNanos;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService refresher;
+
+    private volatile List<Member> members = List.of();
+
+    public LoadBalancingSpanExporter(
+        Supplier<List<CollectorEndpoint>> endpoints,
+        long refreshInterval,
+        Function<CollectorEndpoint, SpanExporter> exporterFactory,
+        LoadBalancingStrategy strategy,
+        int ejectionConsecutiveFailures,
+        long ejectionDuration,
+        long exportTimeout
+    ) {
+        this.exporterFactory = exporterFactory;
+        this.strategy = strategy;
+        this.ejectionConsecutiveFailures = Math.max(1, ejectionConsecutiveFailures);
+        this.ejectionDurationNanos = TimeUnit.MILLISECONDS.toNanos(ejectionDuration);
+        this.exportTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, exportTimeout));
+
+        update(endpoints.get());
+
+        if (refreshInterval > 0) {
+            this.refresher =
+                Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, REFRESH_THREAD_NAME);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            this.refresher.scheduleWithFixedDelay(() -> refresh(endpoints), refreshInterval, refreshInterval, TimeUnit.MILLISECONDS);
+        } else {
+            this.refresher = null;
+        }
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> spans) {
+        CompletableResultCode result = new CompletableResultCode();
+        List<Member> candidates = members;
+        Member member = select(candidates, null);
+        if (member == null) {
+            return result.fail();
+        }
+        export(spans, candidates, member, new ArrayList<>(candidates.size()), System.nanoTime() + exportTimeoutNanos, result);
+        return result;
+    }
+
+    private void export(
+        Collection<SpanData> spans,
+        List<Member> candidates,
+        Member member,
+        List<Member> tried,
+        long deadline,
+        CompletableResultCode result
+    ) {
+        tried.add(member);
+        member.inFlight.incrementAndGet();
+
+        CompletableResultCode memberResult;
+        try {
+            memberResult = member.exporter.export(spans);
+        } catch (RuntimeException e) {
+            log.debug("Unable to export spans to Jaeger collector {}", member.endpoint, e);
+            memberResult = CompletableResultCode.ofFailure();
+        }
+
+        final CompletableResultCode exportResult = memberResult;
+        exportResult.whenComplete(() -> {
+            member.inFlight.decrementAndGet();
+            if (exportResult.isSuccess()) {
+                member.onSuccess();
+                result.succeed();
+                return;
+            }
+
+            member.onFailure();
+            if (result.isDone() || System.nanoTime() - deadline >= 0) {
+                // the caller failed the result after giving up on it, or it is about to, and the spans may be spilled
+                result.fail();
+                return;
+            }
+
+            Member retry = select(candidates, tried);
+            if (retry == null) {
+                result.fail();
+            } else {
+                export(spans, candidates, retry, tried, deadline, result);
+            }
+        });
+    }
+
+    /**
+     * Select a healthy member not already tried. If all the members are ejected, the ejection is ignored.
+     */
+    private Member select(List<Member> candidates, List<Member> tried) {
+        if (candidates.isEmpty()) {
+            return null;
+        }
+
+        long now = System.nanoTime();
+        Member selected = select(candidates, tried, now, true);
+        if (selected == null && (tried == null || tried.isEmpty())) {
+            selected = select(candidates, tried, now, false);
+        }
+        return selected;
+    }
+
+    private Member select(List<Member> candidates, List<Member> tried, long now, boolean healthyOnly) {
+        int size = candidates.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        Member selected = null;
+
+        for (int i = 0; i < size; i++) {
+            Member candidate = candidates.get((start + i) % size);
+            if ((healthyOnly && !candidate.isHealthy(now)) || (tried != null && tried.contains(candidate))) {
+                continue;
+            }
+            if (strategy == LoadBalancingStrategy.ROUND_ROBIN) {
+                return candidate;
+            }
+            if (selected == null || candidate.inFlight.get() < selected.inFlight.get()) {
+                selected = candidate;
+            }
+        }
+        return selected;
+    }
+
+    private void refresh(Supplier<List<CollectorEndpoint>> endpoints) {
+        try {
+            List<CollectorEndpoint> resolved = endpoints.get();
+            if (!resolved.isEmpty()) {
+                update(resolved);
+            }
+        } catch (Exception e) {
+            log.warn("Unable to refresh the list of Jaeger collectors, keeping the current one", e);
+        }
+    }
+
+    private synchronized void update(List<CollectorEndpoint> endpoints) {
+        Map<CollectorEndpoint, Member> current = new HashMap<>();
+        for (Member member : members) {
+            current.put(member.endpoint, member);
+        }
+
+        List<Member> updated = new ArrayList<>(endpoints.size());
+        for (CollectorEndpoint endpoint : endpoints) {
+            Member member = current.remove(endpoint);
+            if (member == null) {
+                log.debug("Adding Jaeger collector {}", endpoint);
+                member = new Member(endpoint, exporterFactory.apply(endpoint));
+            }
+            if (!updated.contains(member)) {
+                updated.add(member);
+            }
+        }
+        members = List.copyOf(updated);
+
+        // collectors which disappeared finish their in-flight exports before being shut down
+        current
+            .values()
+            .forEach(member -> {
+                log.debug("Removing Jaeger collector {}", member.endpoint);
+                member.exporter.flush().whenComplete(member.exporter::shutdown);
+            });
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        List<CompletableResultCode> results = new ArrayList<>();
+        members.forEach(member -> results.add(member.exporter.flush()));
+        return CompletableResultCode.ofAll(results);
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+        List<CompletableResultCode> results = new ArrayList<>();
+        members.forEach(member -> results.add(member.exporter.shutdown()));
+        return CompletableResultCode.ofAll(results);
+    }
+
+    /**
+     * @return the collectors currently receiving spans.
+     */
+    public List<CollectorEndpoint> getHealthyEndpoints() {
+        long now = System.nanoTime();
+        List<CollectorEndpoint> healthy = new ArrayList<>();
+        members.forEach(member -> {
+            if (member.isHealthy(now)) {
+                healthy.add(member.endpoint);
+            }
+        });
+        return healthy;
+    }
+
+    private final class Member {
+
+        private final CollectorEndpoint endpoint;
+        private final SpanExporter exporter;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private volatile long ejectedUntil;
+        private volatile boolean ejected;
+
+        private Member(CollectorEndpoint endpoint, SpanExporter exporter) {
+            this.endpoint = endpoint;
+            this.exporter = exporter;
+        }
+
+        private boolean isHealthy(long now) {
+            return !ejected || now - ejectedUntil >= 0;
+        }
+
+        private void onSuccess() {
+            consecutiveFailures.set(0);
+            if (ejected) {
+                ejected = false;
+                log.info("Jaeger collector {} is back, spans are sent to it again", endpoint);
+            }
+        }
+
+        private void onFailure() {
+            if (consecutiveFailures.incrementAndGet() >= ejectionConsecutiveFailures) {
+                ejectedUntil = System.nanoTime() + ejectionDurationNanos;
+                if (!ejected) {
+                    ejected = true;
+                    log.warn("Jaeger collector {} is ejected after {} failed exports", endpoint, consecutiveFailures.get());
+                }
+            }
+        }
+    }
+}
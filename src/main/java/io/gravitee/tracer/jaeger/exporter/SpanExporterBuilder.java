@@ -0,0 +1,245 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.exporter;
+
+import io.gravitee.tracer.jaeger.JaegerGrpcChannelBuilder;
+import io.gravitee.tracer.jaeger.JaegerSslOptions;
+import io.gravitee.tracer.jaeger.configuration.JaegerTracerConfiguration;
+import io.gravitee.tracer.jaeger.metrics.GrpcMetricsInterceptor;
+import io.gravitee.tracer.jaeger.metrics.MeteredSpanExporter;
+import io.gravitee.tracer.jaeger.metrics.TracerMetrics;
+import io.grpc.ManagedChannel;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.opentelemetry.exporter.jaeger.JaegerGrpcSpanExporter;
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporter;
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporterBuilder;
+import io.opentelemetry.exporter.otlp.trace.OtlpGrpcSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.vertx.core.Vertx;
+import io.vertx.core.net.KeyCertOptions;
+import io.vertx.core.net.TrustOptions;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Builds the {@link SpanExporter} matching the configured protocol: the Jaeger model protocol or OTLP over gRPC, both
+ * through the Vert.x gRPC channel, or OTLP over HTTP/protobuf. All of them share the TLS and compression settings.
+ *
+ * When several collector endpoints are configured, or when host names are resolved to all their addresses, one
+ * exporter is built per collector and the spans are balanced across them.
+ *
+ * @author GraviteeSource Team
+ */
+@Slf4j
+public class SpanExporterBuilder {
+
+    private static final String OTLP_HTTP_TRACES_PATH = "/v1/traces";
+    private static final String COMPRESSION_GZIP = "gzip";
+    private static final String COMPRESSION_NONE = "none";
+
+    private final Vertx vertx;
+    private final JaegerTracerConfiguration configuration;
+    private TracerMetrics metrics = TracerMetrics.noop();
+
+    private SpanExporterBuilder(Vertx vertx, JaegerTracerConfiguration configuration) {
+        this.vertx = vertx;
+        this.configuration = configuration;
+    }
+
+    public static SpanExporterBuilder from(Vertx vertx, JaegerTracerConfiguration configuration) {
+        return new SpanExporterBuilder(vertx, configuration);
+    }
+
+    public SpanExporterBuilder metrics(TracerMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    public SpanExporter build() {
+        return new MeteredSpanExporter(buildBalanced(), metrics);
+    }
+
+    private SpanExporter buildBalanced() {
+        final List<CollectorEndpoint> endpoints = endpoints();
+        final boolean resolveDns = configuration.isLoadBalancingResolveDns();
+
+        if (endpoints.size() == 1 && !resolveDns) {
+            return build(endpoints.get(0));
+        }
+
+        Supplier<List<CollectorEndpoint>> endpointsSupplier = resolveDns ? () -> resolve(endpoints) : () -> endpoints;
+        return new LoadBalancingSpanExporter(
+            endpointsSupplier,
+            resolveDns ? configuration.getLoadBalancingDnsRefreshInterval() : 0,
+            this::build,
+            LoadBalancingStrategy.fromValue(configuration.getLoadBalancingStrategy()),
+            configuration.getLoadBalancingEjectionConsecutiveFailures(),
+            configuration.getLoadBalancingEjectionDuration(),
+            configuration.getBatchExportTimeout()
+        );
+    }
+
+    /**
+     * Build the exporter sending spans to the given collector.
+     */
+    public SpanExporter build(CollectorEndpoint endpoint) {
+        switch (ExporterProtocol.fromValue(configuration.getProtocol())) {
+            case OTLP_GRPC:
+                return buildOtlpGrpc(endpoint);
+            case OTLP_HTTP:
+                return buildOtlpHttp(endpoint);
+            case JAEGER:
+            default:
+                return buildJaeger(endpoint);
+        }
+    }
+
+    private List<CollectorEndpoint> endpoints() {
+        List<String> endpoints = configuration.getEndpoints();
+        if (endpoints == null || endpoints.isEmpty()) {
+            return List.of(new CollectorEndpoint(configuration.getHost(), configuration.getPort()));
+        }
+        return endpoints.stream().map(endpoint -> CollectorEndpoint.parse(endpoint, configuration.getPort())).collect(Collectors.toList());
+    }
+
+    private List<CollectorEndpoint> resolve(List<CollectorEndpoint> endpoints) {
+        if (ExporterProtocol.fromValue(configuration.getProtocol()) == ExporterProtocol.OTLP_HTTP) {
+            // HTTP requests must target the host name for TLS verification
+            return endpoints;
+        }
+
+        List<CollectorEndpoint> resolved = new ArrayList<>();
+        for (CollectorEndpoint endpoint : endpoints) {
+            try {
+                for (InetAddress address : InetAddress.getAllByName(endpoint.getHost())) {
+                    resolved.add(new CollectorEndpoint(address.getHostAddress(), endpoint.getPort(), endpoint.getHost()));
+                }
+            } catch (UnknownHostException e) {
+                log.warn("Unable to resolve Jaeger collector host {}", endpoint.getHost());
+            }
+        }
+        return resolved;
+    }
+
+    private SpanExporter buildJaeger(CollectorEndpoint endpoint) {
+        // Create a channel towards Jaeger end point
+        final ManagedChannel channel = JaegerGrpcChannelBuilder
+            .from(vertx, configuration)
+            .build(endpoint, new GrpcMetricsInterceptor(metrics));
+        return new ChannelSpanExporter(
+            JaegerGrpcSpanExporter
+                .builder()
+                .setChannel(channel)
+                .setCompression(compression())
+                .setTimeout(configuration.getBatchExportTimeout(), TimeUnit.MILLISECONDS)
+                .build(),
+            channel
+        );
+    }
+
+    @SuppressWarnings("deprecation")
+    private SpanExporter buildOtlpGrpc(CollectorEndpoint endpoint) {
+        // Reuse the Vert.x channel so that OTLP gets exactly the same TLS support as the Jaeger protocol
+        final ManagedChannel channel = JaegerGrpcChannelBuilder
+            .from(vertx, configuration)
+            .build(endpoint, new GrpcMetricsInterceptor(metrics));
+        return new ChannelSpanExporter(
+            OtlpGrpcSpanExporter
+                .builder()
+                .setChannel(channel)
+                .setCompression(compression())
+                .setTimeout(configuration.getBatchExportTimeout(), TimeUnit.MILLISECONDS)
+                .build(),
+            channel
+        );
+    }
+
+    private SpanExporter buildOtlpHttp(CollectorEndpoint endpoint) {
+        String scheme = configuration.isSslEnabled() ? "https" : "http";
+        OtlpHttpSpanExporterBuilder builder = OtlpHttpSpanExporter
+            .builder()
+            .setEndpoint(scheme + "://" + endpoint.getHost() + ":" + endpoint.getPort() + OTLP_HTTP_TRACES_PATH)
+            .setCompression(compression())
+            .setTimeout(configuration.getBatchExportTimeout(), TimeUnit.MILLISECONDS);
+
+        if (configuration.isSslEnabled()) {
+            configureSsl(builder);
+        }
+
+        return builder.build();
+    }
+
+    private void configureSsl(OtlpHttpSpanExporterBuilder builder) {
+        try {
+            JaegerSslOptions sslOptions = JaegerSslOptions.from(configuration);
+
+            KeyManager[] keyManagers = null;
+            KeyCertOptions keyCertOptions = sslOptions.keyCertOptions();
+            if (keyCertOptions != null) {
+                keyManagers = keyCertOptions.getKeyManagerFactory(vertx).getKeyManagers();
+            }
+
+            TrustManagerFactory trustManagerFactory;
+            TrustOptions trustOptions = sslOptions.trustOptions();
+            if (configuration.isTrustAll()) {
+                trustManagerFactory = InsecureTrustManagerFactory.INSTANCE;
+            } else if (trustOptions != null) {
+                trustManagerFactory = trustOptions.getTrustManagerFactory(vertx);
+            } else {
+                trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+                trustManagerFactory.init((KeyStore) null);
+            }
+
+            TrustManager[] trustManagers = trustManagerFactory.getTrustManagers();
+            X509TrustManager trustManager = Arrays
+                .stream(trustManagers)
+                .filter(X509TrustManager.class::isInstance)
+                .map(X509TrustManager.class::cast)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No X509 trust manager available"));
+
+            SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(keyManagers, trustManagers, null);
+            builder.setSslContext(sslContext, trustManager);
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to configure SSL for the OTLP HTTP exporter", e);
+        }
+    }
+
+    private String compression() {
+        String compression = configuration.getCompression();
+        if (compression == null || compression.equalsIgnoreCase(COMPRESSION_NONE)) {
+            return COMPRESSION_NONE;
+        }
+        if (compression.equalsIgnoreCase(COMPRESSION_GZIP)) {
+            return COMPRESSION_GZIP;
+        }
+        throw new IllegalArgumentException("Unsupported Jaeger exporter compression: " + compression);
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.exporter;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Exporter whose delegate can be replaced at runtime, so that the collector connection and exporter settings change
+ * without rebuilding the tracer.
+ *
+ * The new delegate is switched in atomically. The previous one finishes its in-flight exports, is flushed, then shut
+ * down in the background, so no span handed to it is lost and exports never wait for the switch.
+ *
+ * @author GraviteeSource Team
+ */
+public class SwappableSpanExporter implements SpanExporter {
+
+    private final AtomicReference<Generation> current;
+
+    public SwappableSpanExporter(SpanExporter delegate) {
+        this.current = new AtomicReference<>(new Generation(delegate));
+    }
+
+    /**
+     * Switches to the given exporter and retires the current one once its in-flight exports are complete.
+     *
+     * @return the result of the shutdown of the retired exporter.
+     */
+    public CompletableResultCode swap(SpanExporter delegate) {
+        Generation previous = current.getAndSet(new Generation(delegate));
+        return previous.retire();
+    }
+
+    public SpanExporter getDelegate() {
+        return current.get().exporter;
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> spans) {
+        while (true) {
+            Generation generation = current.get();
+            generation.acquire();
+            // a swap may have retired this generation before it was acquired
+            if (current.get() != generation) {
+                generation.release();
+                continue;
+            }
+
+            CompletableResultCode result;
+            try {
+                result = generation.exporter.export(spans);
+            } catch (RuntimeException e) {
+                generation.release();
+                throw e;
+            }
+            result.whenComplete(generation::release);
+            return result;
+        }
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return current.get().exporter.flush();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return current.get().retire();
+    }
+
+    private static final class Generation {
+
+        private final SpanExporter exporter;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicBoolean shutdown = new AtomicBoolean();
+        private final CompletableResultCode shutdownResult = new CompletableResultCode();
+        private volatile boolean retired;
+
+        private Generation(SpanExporter exporter) {
+            this.exporter = exporter;
+        }
+
+        private void acquire() {
+            inFlight.incrementAndGet();
+        }
+
+        private void release() {
+            if (inFlight.decrementAndGet() == 0 && retired) {
+                shutdown();
+            }
+        }
+
+        private CompletableResultCode retire() {
+            retired = true;
+            if (inFlight.get() == 0) {
+                shutdown();
+            }
+            return shutdownResult;
+        }
+
+        private void shutdown() {
+            if (!shutdown.compareAndSet(false, true)) {
+                return;
+            }
+            exporter
+                .flush()
+                .whenComplete(() -> {
+                    CompletableResultCode result = exporter.shutdown();
+                    result.whenComplete(() -> {
+                        if (result.isSuccess()) {
+                            shutdownResult.succeed();
+                        } else {
+                            shutdownResult.fail();
+                        }
+                    });
+                });
+        }
+    }
+}
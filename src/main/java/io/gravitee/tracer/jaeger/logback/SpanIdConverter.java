@@ -0,0 +1,34 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.logback;
+
+import ch.qos.logback.classic.pattern.ClassicConverter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import io.gravitee.tracer.jaeger.TracingCorrelation;
+
+/**
+ * Writes the id of the active span, or nothing, into the log line. See {@link TraceIdConverter}.
+ *
+ * @author GraviteeSource Team
+ */
+public class SpanIdConverter extends ClassicConverter {
+
+    @Override
+    public String convert(ILoggingEvent event) {
+        String spanId = TracingCorrelation.spanId();
+        return spanId == null ? "" : spanId;
+    }
+}
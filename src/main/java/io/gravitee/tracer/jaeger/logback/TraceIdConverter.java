@@ -0,0 +1,38 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.logback;
+
+import ch.qos.logback.classic.pattern.ClassicConverter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import io.gravitee.tracer.jaeger.TracingCorrelation;
+
+/**
+ * Writes the trace id of the active span, or nothing, into the log line: <code>%traceId</code> once declared with
+ * <code>&lt;conversionRule conversionWord="traceId" converterClass="io.gravitee.tracer.jaeger.logback.TraceIdConverter"/&gt;</code>.
+ *
+ * The span is read when the line is formatted, so the converter is only accurate with synchronous appenders. Use
+ * {@link TracingMdcTurboFilter} with asynchronous ones.
+ *
+ * @author GraviteeSource Team
+ */
+public class TraceIdConverter extends ClassicConverter {
+
+    @Override
+    public String convert(ILoggingEvent event) {
+        String traceId = TracingCorrelation.traceId();
+        return traceId == null ? "" : traceId;
+    }
+}
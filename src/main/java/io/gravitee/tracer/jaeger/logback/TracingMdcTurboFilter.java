@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.logback;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import io.gravitee.tracer.jaeger.TracingCorrelation;
+import io.opentelemetry.api.trace.SpanContext;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+/**
+ * Keeps the ids of the active span in the MDC of the logging thread, so that they are captured with each log event and
+ * available to asynchronous appenders and structured encoders: <code>%X{traceId}</code> and <code>%X{spanId}</code>.
+ *
+ * Declared with <code>&lt;turboFilter class="io.gravitee.tracer.jaeger.logback.TracingMdcTurboFilter"/&gt;</code>, it
+ * runs before each log statement and never filters any. The MDC is only written for enabled statements, when the active
+ * span differs from the one it holds, the ids being compared by reference, so consecutive lines of the same request cost
+ * two lookups.
+ *
+ * Logback is configured by the gateway class loader, so this class must be on the gateway classpath, not only in the
+ * plugin, for <code>logback.xml</code> to load it.
+ *
+ * @author GraviteeSource Team
+ */
+public class TracingMdcTurboFilter extends TurboFilter {
+
+    private String traceIdKey = "traceId";
+    private String spanIdKey = "spanId";
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // disabled statements are not logged, there is no point in updating the MDC for them
+        if (level != null && !level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+
+        SpanContext spanContext = TracingCorrelation.spanContext();
+        if (spanContext.isValid()) {
+            // the ids are the same string instances as long as the span is the same
+            if (MDC.get(spanIdKey) != spanContext.getSpanId()) {
+                MDC.put(traceIdKey, spanContext.getTraceId());
+                MDC.put(spanIdKey, spanContext.getSpanId());
+            }
+        } else if (MDC.get(spanIdKey) != null) {
+            MDC.remove(traceIdKey);
+            MDC.remove(spanIdKey);
+        }
+        return FilterReply.NEUTRAL;
+    }
+
+    public String getTraceIdKey() {
+        return traceIdKey;
+    }
+
+    public void setTraceIdKey(String traceIdKey) {
+        this.traceIdKey = traceIdKey;
+    }
+
+    public String getSpanIdKey() {
+        return spanIdKey;
+    }
+
+    public void setSpanIdKey(String spanIdKey) {
+        this.spanIdKey = spanIdKey;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.metrics;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import java.util.Collection;
+
+/**
+ * Records the batch size, the latency and the result of every export call of the delegate {@link SpanExporter}.
+ *
+ * @author GraviteeSource Team
+ */
+public class MeteredSpanExporter implements SpanExporter {
+
+    private final SpanExporter delegate;
+    private final TracerMetrics metrics;
+
+    public MeteredSpanExporter(SpanExporter delegate, TracerMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> spans) {
+        final long start = System.nanoTime();
+        final int batchSize = spans.size();
+
+        CompletableResultCode result = delegate.export(spans);
+        result.whenComplete(() -> metrics.exported(batchSize, System.nanoTime() - start, result.isSuccess()));
+        return result;
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return delegate.flush();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return delegate.shutdown();
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.metrics;
+
+import io.gravitee.tracer.jaeger.processor.AdaptiveBatchSpanProcessor;
+import io.gravitee.tracer.jaeger.spill.SpillingSpanExporter;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.opentelemetry.api.trace.SpanKind;
+import io.vertx.micrometer.backends.BackendRegistries;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Self-metrics of the tracer, published in the Micrometer registry of the node so that span drops, queue depth and
+ * export latency can be monitored next to the other node metrics.
+ *
+ * Counters owned by the processors and exporters are bound as function meters, so recording them costs nothing more
+ * than the {@link java.util.concurrent.atomic.LongAdder} they already maintain.
+ *
+ * @author GraviteeSource Team
+ */
+public class TracerMetrics {
+
+    private static final String PREFIX = "tracer.";
+    private static final String TAG_REASON = "reason";
+    private static final String TAG_RESULT = "result";
+    private static final String TAG_STATUS = "status";
+    private static final String TAG_OPERATION = "operation";
+    private static final String TAG_KIND = "kind";
+    private static final String TAG_ERROR = "error";
+
+    /**
+     * Upper bounds of the RED latency histogram buckets.
+     */
+    private static final Duration[] RED_BUCKETS = {
+        Duration.ofMillis(5),
+        Duration.ofMillis(10),
+        Duration.ofMillis(25),
+        Duration.ofMillis(50),
+        Duration.ofMillis(100),
+        Duration.ofMillis(250),
+        Duration.ofMillis(500),
+        Duration.ofSeconds(1),
+        Duration.ofMillis(2500),
+        Duration.ofSeconds(5),
+        Duration.ofSeconds(10),
+    };
+
+    private final MeterRegistry registry;
+    private final Set<Meter> meters = ConcurrentHashMap.newKeySet();
+
+    private final Counter startedSpans;
+    private final Counter sampledSpans;
+    private final Counter exportedSpans;
+    private final Counter successfulExports;
+    private final Counter failedExports;
+    private final DistributionSummary exportBatchSize;
+    private final Timer exportDuration;
+    private final Map<Status.Code, Counter> grpcFailures = new ConcurrentHashMap<>();
+    private final Counter shutdownDroppedSpans;
+    private final Timer shutdownDuration;
+
+    public TracerMetrics(MeterRegistry registry) {
+        this.registry = registry;
+
+        this.startedSpans = registered(Counter.builder(PREFIX + "spans.started").description("Spans started").register(registry));
+        this.sampledSpans =
+            registered(Counter.builder(PREFIX + "spans.sampled").description("Spans started and sampled").register(registry));
+        this.exportedSpans =
+            registered(Counter.builder(PREFIX + "spans.exported").description("Spans accepted by the collector").register(registry));
+        this.successfulExports =
+            registered(
+                Counter
+                    .builder(PREFIX + "exports")
+                    .description("Export calls to the collector")
+                    .tags(TAG_RESULT, "success")
+                    .register(registry)
+            );
+        this.failedExports =
+            registered(
+                Counter
+                    .builder(PREFIX + "exports")
+                    .description("Export calls to the collector")
+                    .tags(TAG_RESULT, "failure")
+                    .register(registry)
+            );
+        this.exportBatchSize =
+            registered(
+                DistributionSummary
+                    .builder(PREFIX + "export.batch.size")
+                    .description("Spans sent in a single export call")
+                    .baseUnit("spans")
+                    .register(registry)
+            );
+        this.exportDuration =
+            registered(
+                Timer
+                    .builder(PREFIX + "export.duration")
+                    .description("Duration of the export calls")
+                    .publishPercentileHistogram()
+                    .register(registry)
+            );
+        // recorded when the tracer stops, so they are kept by close() to be published by the node reporters afterwards.
+        // The registry returns the same meters to the next instance when the tracer is restarted.
+        this.shutdownDuration =
+            Timer
+                .builder(PREFIX + "shutdown.duration")
+                .description("Time spent draining the spans when the tracer stops")
+                .register(registry);
+        this.shutdownDroppedSpans =
+            Counter
+                .builder(PREFIX + "spans.dropped")
+                .description("Spans dropped before being exported")
+                .tags(TAG_REASON, "shutdown")
+                .register(registry);
+    }
+
+    /**
+     * @return the metrics published in the Vert.x Micrometer registry, or discarded when the node metrics are disabled.
+     */
+    public static TracerMetrics create() {
+        MeterRegistry registry = BackendRegistries.getDefaultNow();
+        return new TracerMetrics(registry == null ? new CompositeMeterRegistry() : registry);
+    }
+
+    public static TracerMetrics noop() {
+        return new TracerMetrics(new CompositeMeterRegistry());
+    }
+
+    public void spanStarted(boolean sampled) {
+        startedSpans.increment();
+        if (sampled) {
+            sampledSpans.increment();
+        }
+    }
+
+    public void exported(int batchSize, long durationNanos, boolean success) {
+        exportBatchSize.record(batchSize);
+        exportDuration.record(durationNanos, TimeUnit.NANOSECONDS);
+        if (success) {
+            successfulExports.increment();
+            exportedSpans.increment(batchSize);
+        } else {
+            failedExports.increment();
+        }
+    }
+
+    public void shutdown(long durationNanos, long droppedSpans) {
+        shutdownDuration.record(durationNanos, TimeUnit.NANOSECONDS);
+        shutdownDroppedSpans.increment(droppedSpans);
+    }
+
+    public void grpcFailure(Status.Code code) {
+        grpcFailures
+            .computeIfAbsent(
+                code,
+                key ->
+                    registered(
+                        Counter
+                            .builder(PREFIX + "export.grpc.failures")
+                            .description("gRPC export calls which failed")
+                            .tags(TAG_STATUS, key.name())
+                            .register(registry)
+                    )
+            )
+            .increment();
+    }
+
+    public void bind(AdaptiveBatchSpanProcessor processor) {
+        registered(
+            FunctionCounter
+                .builder(PREFIX + "spans.queued", processor, AdaptiveBatchSpanProcessor::getQueuedSpans)
+                .description("Spans queued for export")
+                .register(registry)
+        );
+        registered(
+            FunctionCounter
+                .builder(PREFIX + "spans.dropped", processor, AdaptiveBatchSpanProcessor::getDroppedSpans)
+                .description("Spans dropped before being exported")
+                .tags(TAG_REASON, "queue_full")
+                .register(registry)
+        );
+        registered(
+            FunctionCounter
+                .builder(PREFIX + "spans.dropped", processor, AdaptiveBatchSpanProcessor::getFailedSpans)
+                .description("Spans dropped before being exported")
+                .tags(TAG_REASON, "export_failed")
+                .register(registry)
+        );
+        registered(
+            Gauge
+                .builder(PREFIX + "queue.size", processor, AdaptiveBatchSpanProcessor::getQueueSize)
+                .description("Spans waiting in the export queue")
+                .register(registry)
+        );
+        registered(
+            Gauge
+                .builder(PREFIX + "queue.memory", processor, AdaptiveBatchSpanProcessor::getQueueMemory)
+                .description("Estimated size of the spans waiting in the export queue, when the queue memory is bounded")
+                .baseUnit("bytes")
+                .register(registry)
+        );
+    }
+
+    public void bind(SpillingSpanExporter exporter) {
+        registered(
+            FunctionCounter
+                .builder(PREFIX + "spill.spilled", exporter, SpillingSpanExporter::getSpilledSpans)
+                .description("Spans written to the spill buffer")
+                .register(registry)
+        );
+        registered(
+            FunctionCounter
+                .builder(PREFIX + "spill.replayed", exporter, SpillingSpanExporter::getReplayedSpans)
+                .description("Spilled spans exported again")
+                .register(registry)
+        );
+        registered(
+            FunctionCounter
+                .builder(PREFIX + "spans.dropped", exporter, SpillingSpanExporter::getDroppedSpans)
+                .description("Spans dropped before being exported")
+                .tags(TAG_REASON, "spill_full")
+                .register(registry)
+        );
+        registered(
+            Gauge
+                .builder(PREFIX + "spill.pending", exporter, SpillingSpanExporter::getPendingSpans)
+                .description("Spans waiting in the spill buffer")
+                .register(registry)
+        );
+    }
+
+    /**
+     * @return the timer of the RED series of an operation and span kind, publishing the latency histogram of the ended
+     * spans, sampled or not, with the given error outcome.
+     */
+    public Timer redDuration(String operation, SpanKind kind, boolean error) {
+        return registered(
+            Timer
+                .builder(PREFIX + "red.duration")
+                .description("Duration of the ended spans, sampled or not")
+                .tags(TAG_OPERATION, operation, TAG_KIND, kind.name().toLowerCase(), TAG_ERROR, Boolean.toString(error))
+                .serviceLevelObjectives(RED_BUCKETS)
+                .register(registry)
+        );
+    }
+
+    /**
+     * Removes the meters of the tracer from the registry, which outlives the tracer when it is restarted. The shutdown
+     * meters are kept, as they are recorded while the tracer stops.
+     */
+    public void close() {
+        meters.forEach(registry::remove);
+        meters.clear();
+        grpcFailures.clear();
+    }
+
+    private <M extends Meter> M registered(M meter) {
+        meters.add(meter);
+        return meter;
+    }
+}
@@ -0,0 +1,430 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.processor;
+
+import io.gravitee.tracer.jaeger.configuration.JaegerTracerConfiguration;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Batches ended spans and hands them over to a {@link SpanExporter} from a dedicated thread.
+ *
+ * Unlike the SDK {@link io.opentelemetry.sdk.trace.export.BatchSpanProcessor}, queue size, batch size, schedule delay
+ * and export timeout all come from the {@link JaegerTracerConfiguration}. When adaptive batching is enabled, the
+ * processor measures the span throughput and grows the batch size (then shortens the schedule delay) as it rises, so
+ * that a busy gateway issues fewer and larger export calls.
+ *
+ * The queue can also be bounded by the estimated memory of the spans it holds. Spans are then snapshotted when they end
+ * so that their size is known, and the spans which exceed the budget are handled as if the queue was full.
+ *
+ * The queue is striped (see {@link StripedSpanQueue}) so that the event loops ending spans do not contend on a single
+ * lock, and the worker merges the stripes into batches.
+ *
+ * @author GraviteeSource Team
+ */
+@Slf4j
+public class AdaptiveBatchSpanProcessor implements SpanProcessor {
+
+    private static final String WORKER_THREAD_NAME = "gio-tracer-jaeger-batch";
+
+    /**
+     * Weight of the last measure in the exponentially weighted throughput average.
+     */
+    private static final double THROUGHPUT_SMOOTHING = 0.3;
+
+    /**
+     * Minimum measuring window before the batch settings are recomputed.
+     */
+    private static final long TUNING_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final SpanExporter exporter;
+    private final Predicate<ReadableSpan> overflow;
+    private final Worker worker;
+    private final AtomicBoolean shutdown = new AtomicBoolean(false);
+
+    public AdaptiveBatchSpanProcessor(SpanExporter exporter, JaegerTracerConfiguration configuration) {
+        this(exporter, configuration, span -> false);
+    }
+
+    /**
+     * @param overflow called, from the thread ending the span, with the spans which do not fit in the queue. It returns
+     *                 <code>false</code> when the span is dropped.
+     */
+    public AdaptiveBatchSpanProcessor(SpanExporter exporter, JaegerTracerConfiguration configuration, Predicate<ReadableSpan> overflow) {
+        this.exporter = exporter;
+        this.overflow = overflow;
+        this.worker = new Worker(configuration);
+
+        Thread thread = new Thread(worker, WORKER_THREAD_NAME);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {}
+
+    @Override
+    public boolean isStartRequired() {
+        return false;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        if (span == null || !span.getSpanContext().isSampled()) {
+            return;
+        }
+        if (shutdown.get()) {
+            // the queue is being drained for the last time, the span would never be exported
+            worker.rejectedSpans.increment();
+            return;
+        }
+        worker.addSpan(span);
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        if (shutdown.getAndSet(true)) {
+            return CompletableResultCode.ofSuccess();
+        }
+        return worker.shutdown();
+    }
+
+    @Override
+    public CompletableResultCode forceFlush() {
+        return worker.forceFlush();
+    }
+
+    /**
+     * @return the number of spans dropped because the queue was full and the overflow did not accept them.
+     */
+    public long getDroppedSpans() {
+        return worker.droppedSpans.sum();
+    }
+
+    /**
+     * @return the number of spans which ended after the processor was shut down, and were not exported.
+     */
+    public long getRejectedSpans() {
+        return worker.rejectedSpans.sum();
+    }
+
+    /**
+     * @return the number of spans accepted in the queue.
+     */
+    public long getQueuedSpans() {
+        return worker.queuedSpans.sum();
+    }
+
+    /**
+     * @return the number of spans lost because their export failed.
+     */
+    public long getFailedSpans() {
+        return worker.failedSpans.sum();
+    }
+
+    /**
+     * @return the number of spans currently waiting in the queue.
+     */
+    public int getQueueSize() {
+        return worker.queue.size();
+    }
+
+    /**
+     * @return the number of stripes the queue is split into.
+     */
+    public int getQueueStripes() {
+        return worker.queue.getStripeCount();
+    }
+
+    /**
+     * @return the estimated size in bytes of the spans waiting in the queue, when the queue memory is bounded.
+     */
+    public long getQueueMemory() {
+        return worker.queue.memory();
+    }
+
+    /**
+     * @return the current maximum export batch size, which may differ from the configured one in adaptive mode.
+     */
+    public int getCurrentBatchSize() {
+        return worker.batchSize;
+    }
+
+    /**
+     * @return the current schedule delay in milliseconds, which may differ from the configured one in adaptive mode.
+     */
+    public long getCurrentScheduleDelay() {
+        return TimeUnit.NANOSECONDS.toMillis(worker.scheduleDelayNanos);
+    }
+
+    private final class Worker implements Runnable {
+
+        private final StripedSpanQueue queue;
+        private final BlockingQueue<Boolean> signal = new ArrayBlockingQueue<>(1);
+        private final AtomicInteger spansNeeded = new AtomicInteger(Integer.MAX_VALUE);
+        private final AtomicReference<CompletableResultCode> flushRequested = new AtomicReference<>();
+        private final LongAdder droppedSpans = new LongAdder();
+        private final LongAdder queuedSpans = new LongAdder();
+        private final LongAdder failedSpans = new LongAdder();
+        private final LongAdder rejectedSpans = new LongAdder();
+        private final List<SpanData> batch;
+        private final Consumer<ReadableSpan> collector;
+
+        private final boolean adaptive;
+        private final int baseBatchSize;
+        private final int maxBatchSize;
+        private final long baseScheduleDelayNanos;
+        private final long minScheduleDelayNanos;
+        private final long exportTimeoutNanos;
+        private final long maxQueueBytes;
+
+        private volatile boolean continueWork = true;
+        private volatile int batchSize;
+        private volatile long scheduleDelayNanos;
+        private long nextExportTime;
+
+        private long tuningStart;
+        private long tuningSpans;
+        private double throughput = -1;
+
+        private Worker(JaegerTracerConfiguration configuration) {
+            int queueSize = Math.max(1, configuration.getBatchMaxQueueSize());
+            this.adaptive = configuration.isBatchAdaptiveEnabled();
+            this.baseBatchSize = Math.max(1, Math.min(configuration.getBatchMaxExportBatchSize(), queueSize));
+            this.maxBatchSize = adaptive
+                ? Math.max(baseBatchSize, Math.min(configuration.getBatchAdaptiveMaxExportBatchSize(), queueSize))
+                : baseBatchSize;
+            this.baseScheduleDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, configuration.getBatchScheduleDelay()));
+            this.minScheduleDelayNanos = adaptive
+                ? Math.min(
+                    baseScheduleDelayNanos,
+                    TimeUnit.MILLISECONDS.toNanos(Math.max(1, configuration.getBatchAdaptiveMinScheduleDelay()))
+                )
+                : baseScheduleDelayNanos;
+            this.exportTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, configuration.getBatchExportTimeout()));
+            this.maxQueueBytes = Math.max(0, configuration.getBatchMaxQueueMemory());
+
+            if (configuration.getBatchMaxExportBatchSize() > queueSize) {
+                log.warn(
+                    "Jaeger export batch size ({}) is greater than the queue size ({}), using the queue size",
+                    configuration.getBatchMaxExportBatchSize(),
+                    queueSize
+                );
+            }
+
+            int stripes = configuration.getBatchQueueStripes() > 0
+                ? configuration.getBatchQueueStripes()
+                : 2 * Runtime.getRuntime().availableProcessors();
+            this.queue = new StripedSpanQueue(queueSize, maxQueueBytes, stripes);
+            this.batch = new ArrayList<>(maxBatchSize);
+            this.collector = span -> batch.add(span.toSpanData());
+            this.batchSize = baseBatchSize;
+            this.scheduleDelayNanos = baseScheduleDelayNanos;
+        }
+
+        // only writes to the stripe of the calling thread, the bounds being checked by the queue itself
+        private void addSpan(ReadableSpan span) {
+            if (maxQueueBytes > 0) {
+                span = SizedSpan.of(span);
+            }
+
+            int queued = queue.offer(span);
+            if (queued < 0) {
+                overflow(span);
+            } else {
+                queuedSpans.increment();
+                int needed = spansNeeded.get();
+                if (needed != Integer.MAX_VALUE && queued >= needed) {
+                    signal.offer(true);
+                }
+            }
+        }
+
+        private void overflow(ReadableSpan span) {
+            if (!overflow.test(span)) {
+                droppedSpans.increment();
+            }
+        }
+
+        @Override
+        public void run() {
+            tuningStart = System.nanoTime();
+            updateNextExportTime();
+
+            while (continueWork) {
+                if (flushRequested.get() != null) {
+                    flush();
+                }
+
+                int drained = drain(batchSize - batch.size());
+                tuningSpans += drained;
+
+                if (batch.size() >= batchSize || System.nanoTime() >= nextExportTime) {
+                    exportCurrentBatch();
+                    tune();
+                    updateNextExportTime();
+                }
+
+                if (queue.isEmpty()) {
+                    try {
+                        long pollWaitTime = nextExportTime - System.nanoTime();
+                        if (pollWaitTime > 0) {
+                            spansNeeded.set(batchSize - batch.size());
+                            signal.poll(pollWaitTime, TimeUnit.NANOSECONDS);
+                            spansNeeded.set(Integer.MAX_VALUE);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+
+        private int drain(int max) {
+            return max > 0 ? queue.drain(collector, max) : 0;
+        }
+
+        private void flush() {
+            int spansToFlush = queue.size();
+            while (spansToFlush > 0) {
+                int drained = drain(Math.min(spansToFlush, batchSize - batch.size()));
+                if (drained == 0 && batch.size() < batchSize) {
+                    break;
+                }
+                spansToFlush -= drained;
+                if (batch.size() >= batchSize) {
+                    exportCurrentBatch();
+                }
+            }
+            exportCurrentBatch();
+
+            CompletableResultCode flushResult = flushRequested.getAndSet(null);
+            if (flushResult != null) {
+                flushResult.succeed();
+            }
+        }
+
+        /**
+         * Recompute the batch size and schedule delay from the smoothed span throughput. The batch grows until it holds
+         * what arrives during one base schedule delay, and once the batch size is capped, the delay shrinks so that a
+         * full batch is sent as soon as it is available.
+         */
+        private void tune() {
+            if (!adaptive) {
+                return;
+            }
+
+            long now = System.nanoTime();
+            long elapsed = now - tuningStart;
+            if (elapsed < TUNING_INTERVAL_NANOS) {
+                return;
+            }
+
+            double rate = tuningSpans * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+            throughput = throughput < 0 ? rate : THROUGHPUT_SMOOTHING * rate + (1 - THROUGHPUT_SMOOTHING) * throughput;
+            tuningStart = now;
+            tuningSpans = 0;
+
+            double spansPerNano = throughput / TimeUnit.SECONDS.toNanos(1);
+            int targetBatchSize = (int) Math.min(maxBatchSize, Math.max(baseBatchSize, spansPerNano * baseScheduleDelayNanos));
+            long targetDelay = spansPerNano > 0 ? (long) (targetBatchSize / spansPerNano) : baseScheduleDelayNanos;
+
+            batchSize = targetBatchSize;
+            scheduleDelayNanos = Math.max(minScheduleDelayNanos, Math.min(baseScheduleDelayNanos, targetDelay));
+        }
+
+        private void updateNextExportTime() {
+            nextExportTime = System.nanoTime() + scheduleDelayNanos;
+        }
+
+        private void exportCurrentBatch() {
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            try {
+                CompletableResultCode result = exporter.export(Collections.unmodifiableList(batch));
+                result.join(exportTimeoutNanos, TimeUnit.NANOSECONDS);
+                if (!result.isDone()) {
+                    // gives up on the export, so that the exporter does not keep retrying it
+                    result.fail();
+                }
+                if (!result.isSuccess()) {
+                    failedSpans.add(batch.size());
+                    log.debug("Unable to export {} spans to Jaeger", batch.size());
+                }
+            } catch (RuntimeException e) {
+                failedSpans.add(batch.size());
+                log.warn("An error occurs while exporting spans to Jaeger", e);
+            } finally {
+                batch.clear();
+            }
+        }
+
+        private CompletableResultCode shutdown() {
+            CompletableResultCode result = new CompletableResultCode();
+
+            CompletableResultCode flushResult = forceFlush();
+            flushResult.whenComplete(() -> {
+                continueWork = false;
+                CompletableResultCode shutdownResult = exporter.shutdown();
+                shutdownResult.whenComplete(() -> {
+                    if (!flushResult.isSuccess() || !shutdownResult.isSuccess()) {
+                        result.fail();
+                    } else {
+                        result.succeed();
+                    }
+                });
+            });
+
+            return result;
+        }
+
+        private CompletableResultCode forceFlush() {
+            CompletableResultCode flushResult = new CompletableResultCode();
+            // we set the flush request only if no flush is pending, otherwise we return the pending one
+            if (flushRequested.compareAndSet(null, flushResult)) {
+                signal.offer(true);
+            }
+            CompletableResultCode possibleResult = flushRequested.get();
+            return possibleResult == null ? CompletableResultCode.ofSuccess() : possibleResult;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.processor;
+
+import io.gravitee.tracer.jaeger.configuration.JaegerTracerConfiguration;
+import io.gravitee.tracer.jaeger.metrics.TracerMetrics;
+import io.micrometer.core.instrument.Timer;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Aggregates the rate, errors and duration (RED) of the ended spans per operation and span kind, including the spans
+ * which are not sampled, so that exact request metrics are still available when only a fraction of the traces is
+ * exported. The sampler must record the spans it does not sample for them to reach this processor (see
+ * {@link io.gravitee.tracer.jaeger.sampler.JaegerSamplerBuilder}).
+ *
+ * Every series records into a pair of Micrometer {@link Timer}, one for the successful spans and one for the spans in
+ * error, so that the registry publishes the latency histogram in its own format. The number of series is bounded: once
+ * it is reached, the spans of new operations are accounted in a single {@value #OTHER} series.
+ *
+ * @author GraviteeSource Team
+ */
+public class RedMetricsSpanProcessor implements SpanProcessor {
+
+    public static final String OTHER = "other";
+
+    private static final AttributeKey<Boolean> ERROR = AttributeKey.booleanKey("error");
+    private static final AttributeKey<String> HTTP_STATUS_CODE = AttributeKey.stringKey("http.status_code");
+
+    private final Map<SpanKind, Map<String, Series>> series = new EnumMap<>(SpanKind.class);
+    private final AtomicInteger seriesCount = new AtomicInteger();
+    private final int maxSeries;
+    private final TracerMetrics metrics;
+
+    public RedMetricsSpanProcessor(JaegerTracerConfiguration configuration, TracerMetrics metrics) {
+        this.maxSeries = Math.max(1, configuration.getRedMaxOperations());
+        this.metrics = metrics;
+        for (SpanKind kind : SpanKind.values()) {
+            series.put(kind, new ConcurrentHashMap<>());
+        }
+    }
+
+    public List<Series> getSeries() {
+        List<Series> all = new ArrayList<>();
+        series.values().forEach(byOperation -> all.addAll(byOperation.values()));
+        return all;
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {}
+
+    @Override
+    public boolean isStartRequired() {
+        return false;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        if (span == null) {
+            return;
+        }
+        series(span.getName(), span.getKind()).record(span.getLatencyNanos(), isError(span));
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    private Series series(String operation, SpanKind kind) {
+        Map<String, Series> byOperation = series.get(kind);
+        Series existing = byOperation.get(operation);
+        if (existing != null) {
+            return existing;
+        }
+
+        // the overflow series is always created, it does not count against the limit
+        if (!OTHER.equals(operation) && seriesCount.incrementAndGet() > maxSeries) {
+            seriesCount.decrementAndGet();
+            return series(OTHER, kind);
+        }
+
+        // the timers are registered before the series is visible, a concurrent creation gets the same timers back
+        Series created = new Series(
+            operation,
+            kind,
+            metrics.redDuration(operation, kind, false),
+            metrics.redDuration(operation, kind, true)
+        );
+        existing = byOperation.putIfAbsent(operation, created);
+        if (existing != null) {
+            if (!OTHER.equals(operation)) {
+                seriesCount.decrementAndGet();
+            }
+            return existing;
+        }
+        return created;
+    }
+
+    // the tracer sets the error attribute along with the error status, which ReadableSpan does not expose without copying
+    private static boolean isError(ReadableSpan span) {
+        if (Boolean.TRUE.equals(span.getAttribute(ERROR))) {
+            return true;
+        }
+        String statusCode = span.getAttribute(HTTP_STATUS_CODE);
+        return statusCode != null && statusCode.length() == 3 && statusCode.charAt(0) == '5';
+    }
+
+    /**
+     * Requests, errors and latency of one operation and span kind.
+     */
+    public static final class Series {
+
+        private final String operation;
+        private final SpanKind kind;
+        private final Timer successes;
+        private final Timer errors;
+
+        private Series(String operation, SpanKind kind, Timer successes, Timer errors) {
+            this.operation = operation;
+            this.kind = kind;
+            this.successes = successes;
+            this.errors = errors;
+        }
+
+        private void record(long latencyNanos, boolean error) {
+            (error ? errors : successes).record(latencyNanos, TimeUnit.NANOSECONDS);
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public SpanKind getKind() {
+            return kind;
+        }
+
+        public long getRequests() {
+            return successes.count() + errors.count();
+        }
+
+        public long getErrors() {
+            return errors.count();
+        }
+    }
+}
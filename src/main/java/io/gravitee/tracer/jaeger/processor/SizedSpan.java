@@ -0,0 +1,147 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.processor;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.sdk.common.InstrumentationLibraryInfo;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.data.EventData;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import java.util.List;
+
+/**
+ * Immutable snapshot of an ended span, along with an estimation of the heap it retains, used to account the export
+ * queue in bytes.
+ *
+ * The estimation counts the strings and the primitive values held by the span and a fixed overhead per object. It does
+ * not pretend to be exact, only to grow with the attributes and events which make spans expensive.
+ *
+ * @author GraviteeSource Team
+ */
+final class SizedSpan implements ReadableSpan {
+
+    private static final int SPAN_OVERHEAD = 256;
+    private static final int ENTRY_OVERHEAD = 48;
+    private static final int EVENT_OVERHEAD = 64;
+    private static final int LINK_OVERHEAD = 96;
+
+    private final SpanData data;
+    private final long size;
+
+    private SizedSpan(SpanData data, long size) {
+        this.data = data;
+        this.size = size;
+    }
+
+    static SizedSpan of(ReadableSpan span) {
+        if (span instanceof SizedSpan) {
+            return (SizedSpan) span;
+        }
+        SpanData data = span.toSpanData();
+        return new SizedSpan(data, estimate(data));
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    static long estimate(SpanData span) {
+        long size = SPAN_OVERHEAD + span.getName().length() + estimate(span.getAttributes());
+        for (EventData event : span.getEvents()) {
+            size += EVENT_OVERHEAD + event.getName().length() + estimate(event.getAttributes());
+        }
+        for (LinkData link : span.getLinks()) {
+            size += LINK_OVERHEAD + estimate(link.getAttributes());
+        }
+        return size;
+    }
+
+    private static long estimate(Attributes attributes) {
+        long[] size = { 0 };
+        attributes.forEach((key, value) -> size[0] += ENTRY_OVERHEAD + key.getKey().length() + estimate(value));
+        return size[0];
+    }
+
+    private static long estimate(Object value) {
+        if (value instanceof String) {
+            return ((String) value).length();
+        }
+        if (value instanceof List) {
+            long size = 0;
+            for (Object element : (List<?>) value) {
+                size += ENTRY_OVERHEAD + estimate(element);
+            }
+            return size;
+        }
+        return Long.BYTES;
+    }
+
+    @Override
+    public SpanContext getSpanContext() {
+        return data.getSpanContext();
+    }
+
+    @Override
+    public SpanContext getParentSpanContext() {
+        return data.getParentSpanContext();
+    }
+
+    @Override
+    public String getName() {
+        return data.getName();
+    }
+
+    @Override
+    public SpanData toSpanData() {
+        return data;
+    }
+
+    @Override
+    @Deprecated
+    public InstrumentationLibraryInfo getInstrumentationLibraryInfo() {
+        return data.getInstrumentationLibraryInfo();
+    }
+
+    @Override
+    public InstrumentationScopeInfo getInstrumentationScopeInfo() {
+        return data.getInstrumentationScopeInfo();
+    }
+
+    @Override
+    public boolean hasEnded() {
+        return data.hasEnded();
+    }
+
+    @Override
+    public long getLatencyNanos() {
+        return data.getEndEpochNanos() - data.getStartEpochNanos();
+    }
+
+    @Override
+    public SpanKind getKind() {
+        return data.getKind();
+    }
+
+    @Override
+    public <T> T getAttribute(AttributeKey<T> key) {
+        return data.getAttributes().get(key);
+    }
+}
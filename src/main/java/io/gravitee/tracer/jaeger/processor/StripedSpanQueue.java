@@ -0,0 +1,235 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.processor;
+
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded span queue split into stripes, each one owned by the threads it is assigned to on their first write.
+ *
+ * Threads are spread over the stripes in turn, so with at least as many stripes as event loops, every event loop writes
+ * to its own stripe and ending a span is an uncontended compare-and-set instead of a shared lock. The stripes are
+ * drained by a single consumer, the batch worker, which merges them into export batches.
+ *
+ * The bound applies to the whole queue, not to each stripe: any stripe can hold up to the full capacity, so a single
+ * busy event loop can fill the queue while the others are idle, as with a shared queue. Producers never write to a
+ * shared counter though: each stripe counts its own spans and bytes, and the drainer publishes their sums after each
+ * drain. A producer compares the published sums, updated with the current content of its own stripe, to the bounds, so
+ * the bounds are approximate: the queue can go over them by what the other stripes received since the last drain.
+ * Stripes are only allocated once a thread is assigned to them.
+ *
+ * @author GraviteeSource Team
+ */
+final class StripedSpanQueue {
+
+    private final int capacity;
+    private final long maxBytes;
+    private final AtomicReferenceArray<Stripe> stripes;
+    private final AtomicInteger nextStripe = new AtomicInteger();
+    private final ThreadLocal<Stripe> threadStripe = ThreadLocal.withInitial(this::assignStripe);
+    private volatile int publishedSize;
+    private volatile long publishedBytes;
+    private int drainCursor;
+
+    StripedSpanQueue(int capacity, int stripeCount) {
+        this(capacity, 0, stripeCount);
+    }
+
+    /**
+     * @param maxBytes the bound of the queue in bytes, for the {@link SizedSpan}s, or <code>0</code> for no bound.
+     */
+    StripedSpanQueue(int capacity, long maxBytes, int stripeCount) {
+        this.capacity = Math.max(1, capacity);
+        this.maxBytes = Math.max(0, maxBytes);
+        this.stripes = new AtomicReferenceArray<>(Math.max(1, stripeCount));
+    }
+
+    int getStripeCount() {
+        return stripes.length();
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Adds a span to the stripe of the calling thread.
+     *
+     * @return the estimated number of spans in the queue once the span is added, or <code>-1</code> when the queue is
+     * full.
+     */
+    int offer(ReadableSpan span) {
+        Stripe stripe = threadStripe.get();
+        int queued = publishedSize - stripe.publishedSize + stripe.size() + 1;
+        if (queued > capacity) {
+            return -1;
+        }
+
+        long bytes = bytes(span);
+        if (maxBytes > 0 && publishedBytes - stripe.publishedBytes + stripe.bytes.get() + bytes > maxBytes) {
+            return -1;
+        }
+        return stripe.offer(span, bytes) ? queued : -1;
+    }
+
+    /**
+     * Moves up to <code>max</code> spans to the consumer, going over the stripes in turn, then publishes the size of the
+     * queue to the producers. Only one thread may drain the queue.
+     *
+     * @return the number of drained spans.
+     */
+    int drain(Consumer<ReadableSpan> consumer, int max) {
+        int drained = 0;
+        int emptyStripes = 0;
+        int count = stripes.length();
+        while (drained < max && emptyStripes < count) {
+            Stripe stripe = stripes.get(drainCursor);
+            drainCursor = drainCursor + 1 == count ? 0 : drainCursor + 1;
+
+            int stripeDrained = stripe == null ? 0 : stripe.drain(consumer, max - drained);
+            emptyStripes = stripeDrained == 0 ? emptyStripes + 1 : 0;
+            drained += stripeDrained;
+        }
+        publish();
+        return drained;
+    }
+
+    int size() {
+        int size = 0;
+        for (int i = 0; i < stripes.length(); i++) {
+            Stripe stripe = stripes.get(i);
+            if (stripe != null) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * @return the bytes held by the queued {@link SizedSpan}s.
+     */
+    long memory() {
+        long memory = 0;
+        for (int i = 0; i < stripes.length(); i++) {
+            Stripe stripe = stripes.get(i);
+            if (stripe != null) {
+                memory += stripe.bytes.get();
+            }
+        }
+        return memory;
+    }
+
+    private void publish() {
+        int size = 0;
+        long bytes = 0;
+        for (int i = 0; i < stripes.length(); i++) {
+            Stripe stripe = stripes.get(i);
+            if (stripe != null) {
+                stripe.publishedSize = stripe.size();
+                stripe.publishedBytes = stripe.bytes.get();
+                size += stripe.publishedSize;
+                bytes += stripe.publishedBytes;
+            }
+        }
+        publishedSize = size;
+        publishedBytes = bytes;
+    }
+
+    private Stripe assignStripe() {
+        int index = Math.floorMod(nextStripe.getAndIncrement(), stripes.length());
+        Stripe stripe = stripes.get(index);
+        if (stripe == null) {
+            stripes.compareAndSet(index, null, new Stripe(capacity));
+            stripe = stripes.get(index);
+        }
+        return stripe;
+    }
+
+    private static long bytes(ReadableSpan span) {
+        return span instanceof SizedSpan ? ((SizedSpan) span).getSize() : 0;
+    }
+
+    /**
+     * Multi-producer, single-consumer ring buffer. Producers claim a slot by moving the producer index forward, then
+     * publish the span in it. The consumer frees the slot before moving the consumer index, so a producer never
+     * overwrites a span which has not been read yet.
+     */
+    private static final class Stripe {
+
+        private final int capacity;
+        private final AtomicReferenceArray<ReadableSpan> buffer;
+        private final AtomicLong producerIndex = new AtomicLong();
+        private final AtomicLong consumerIndex = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private volatile int publishedSize;
+        private volatile long publishedBytes;
+
+        private Stripe(int capacity) {
+            this.capacity = capacity;
+            this.buffer = new AtomicReferenceArray<>(capacity);
+        }
+
+        private int size() {
+            return (int) (producerIndex.get() - consumerIndex.get());
+        }
+
+        private boolean offer(ReadableSpan span, long spanBytes) {
+            long index;
+            do {
+                index = producerIndex.get();
+                if (index - consumerIndex.get() >= capacity) {
+                    return false;
+                }
+            } while (!producerIndex.compareAndSet(index, index + 1));
+
+            if (spanBytes > 0) {
+                bytes.addAndGet(spanBytes);
+            }
+            buffer.lazySet((int) (index % capacity), span);
+            return true;
+        }
+
+        private int drain(Consumer<ReadableSpan> consumer, int max) {
+            long index = consumerIndex.get();
+            int drained = 0;
+            while (drained < max) {
+                int slot = (int) (index % capacity);
+                ReadableSpan span = buffer.get(slot);
+                if (span == null) {
+                    // either empty, or a producer claimed the slot and has not published its span yet
+                    break;
+                }
+                buffer.lazySet(slot, null);
+                consumerIndex.lazySet(++index);
+                long spanBytes = bytes(span);
+                if (spanBytes > 0) {
+                    bytes.addAndGet(-spanBytes);
+                }
+                consumer.accept(span);
+                drained++;
+            }
+            return drained;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.processor;
+
+import io.gravitee.tracer.jaeger.configuration.JaegerTracerConfiguration;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds ended spans grouped by trace ID for a time window, then forwards the whole trace to the delegate processor only
+ * if one of its spans is in error or lasted longer than the configured latency threshold. A deterministic, trace ID
+ * based, baseline ratio of the other traces is kept as well.
+ *
+ * A span is in error when it has the <code>error</code> attribute, which the tracer sets along with the error status
+ * and the recorded exceptions, or a 5xx response status code. {@link ReadableSpan} does not expose the status, reading
+ * it would copy every span.
+ *
+ * The buffer is bounded: once it holds the maximum number of traces, the spans of new traces are decided on their own
+ * as soon as they end.
+ *
+ * @author GraviteeSource Team
+ */
+@Slf4j
+public class TailSamplingSpanProcessor implements SpanProcessor {
+
+    private static final String SWEEPER_THREAD_NAME = "gio-tracer-jaeger-tail";
+    private static final long MAX_SWEEP_INTERVAL_MS = 1000;
+    private static final AttributeKey<Boolean> ERROR = AttributeKey.booleanKey("error");
+    private static final AttributeKey<String> HTTP_STATUS_CODE = AttributeKey.stringKey("http.status_code");
+
+    private final SpanProcessor delegate;
+    private final long decisionWaitNanos;
+    private final long latencyThresholdNanos;
+    private final int maxTraces;
+    private final Sampler baseline;
+
+    private final Map<String, PendingTrace> pendingTraces = new ConcurrentHashMap<>();
+    private final Map<String, Decision> decidedTraces = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final ScheduledExecutorService sweeper;
+
+    public TailSamplingSpanProcessor(SpanProcessor delegate, JaegerTracerConfiguration configuration) {
+        this.delegate = delegate;
+        this.decisionWaitNanos = TimeUnit.MILLISECONDS.toNanos(configuration.getTailSamplingDecisionWait());
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(configuration.getTailSamplingLatencyThreshold());
+        this.maxTraces = Math.max(1, configuration.getTailSamplingMaxTraces());
+        this.baseline = Sampler.traceIdRatioBased(Math.max(0, Math.min(1, configuration.getTailSamplingBaselineRatio())));
+
+        this.sweeper =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, SWEEPER_THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+            });
+
+        long sweepInterval = Math.max(1, Math.min(MAX_SWEEP_INTERVAL_MS, configuration.getTailSamplingDecisionWait() / 4));
+        this.sweeper.scheduleWithFixedDelay(this::sweep, sweepInterval, sweepInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {}
+
+    @Override
+    public boolean isStartRequired() {
+        return false;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        if (span == null || !span.getSpanContext().isSampled()) {
+            return;
+        }
+
+        final String traceId = span.getSpanContext().getTraceId();
+        final boolean interesting = isInteresting(span);
+
+        Decision decision = decidedTraces.get(traceId);
+        if (decision == null) {
+            PendingTrace trace = pendingTraces.get(traceId);
+            if (trace == null && pendingCount.get() < maxTraces) {
+                trace = pendingTraces.computeIfAbsent(traceId, this::newPendingTrace);
+            }
+
+            if (trace != null && trace.add(span, interesting)) {
+                return;
+            }
+
+            decision = decidedTraces.get(traceId);
+        }
+
+        if (decision == null) {
+            // The buffer is full, decide on this span only
+            if (interesting || isInBaseline(span)) {
+                delegate.onEnd(span);
+            }
+        } else if (decision.keep || interesting) {
+            delegate.onEnd(span);
+        }
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        sweeper.shutdownNow();
+        decideAll();
+        return delegate.shutdown();
+    }
+
+    @Override
+    public CompletableResultCode forceFlush() {
+        decideAll();
+        return delegate.forceFlush();
+    }
+
+    /**
+     * @return the number of traces waiting for a sampling decision.
+     */
+    public int getPendingTraces() {
+        return pendingCount.get();
+    }
+
+    private PendingTrace newPendingTrace(String traceId) {
+        pendingCount.incrementAndGet();
+        return new PendingTrace(System.nanoTime());
+    }
+
+    // only read through the span accessors, the span data is built by the delegate for the kept spans only
+    private boolean isInteresting(ReadableSpan span) {
+        if (span.getLatencyNanos() >= latencyThresholdNanos) {
+            return true;
+        }
+        if (Boolean.TRUE.equals(span.getAttribute(ERROR))) {
+            return true;
+        }
+        String statusCode = span.getAttribute(HTTP_STATUS_CODE);
+        return statusCode != null && statusCode.length() == 3 && statusCode.charAt(0) == '5';
+    }
+
+    private boolean isInBaseline(ReadableSpan span) {
+        return (
+            baseline
+                .shouldSample(
+                    Context.root(),
+                    span.getSpanContext().getTraceId(),
+                    span.getName(),
+                    span.getKind(),
+                    Attributes.empty(),
+                    Collections.emptyList()
+                )
+                .getDecision() ==
+            SamplingDecision.RECORD_AND_SAMPLE
+        );
+    }
+
+    private void sweep() {
+        try {
+            long now = System.nanoTime();
+            pendingTraces.forEach((traceId, trace) -> {
+                if (now - trace.start >= decisionWaitNanos) {
+                    decide(traceId, trace);
+                }
+            });
+            decidedTraces.values().removeIf(decision -> now - decision.time >= decisionWaitNanos);
+        } catch (Exception e) {
+            log.warn("An error occurs while taking tail sampling decisions", e);
+        }
+    }
+
+    private void decideAll() {
+        pendingTraces.forEach(this::decide);
+    }
+
+    private void decide(String traceId, PendingTrace trace) {
+        List<ReadableSpan> spans = trace.close();
+        if (spans == null) {
+            return;
+        }
+
+        boolean keep = trace.interesting || (!spans.isEmpty() && isInBaseline(spans.get(0)));
+
+        // record the decision before releasing the trace so that late spans follow it
+        if (decidedTraces.size() < maxTraces) {
+            decidedTraces.put(traceId, new Decision(keep, System.nanoTime()));
+        }
+        if (pendingTraces.remove(traceId, trace)) {
+            pendingCount.decrementAndGet();
+        }
+
+        if (keep) {
+            spans.forEach(delegate::onEnd);
+        }
+    }
+
+    private static final class PendingTrace {
+
+        private final long start;
+        private List<ReadableSpan> spans = new ArrayList<>(4);
+        private boolean interesting;
+
+        private PendingTrace(long start) {
+            this.start = start;
+        }
+
+        synchronized boolean add(ReadableSpan span, boolean interesting) {
+            if (spans == null) {
+                return false;
+            }
+            spans.add(span);
+            this.interesting |= interesting;
+            return true;
+        }
+
+        synchronized List<ReadableSpan> close() {
+            List<ReadableSpan> closed = spans;
+            spans = null;
+            return closed;
+        }
+    }
+
+    private static final class Decision {
+
+        private final boolean keep;
+        private final long time;
+
+        private Decision(boolean keep, long time) {
+            this.keep = keep;
+            this.time = time;
+        }
+    }
+}
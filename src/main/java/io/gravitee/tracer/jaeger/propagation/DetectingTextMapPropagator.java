@@ -0,0 +1,121 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.propagation;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapGetter;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import io.opentelemetry.context.propagation.TextMapSetter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Propagator supporting several formats, which only runs the propagators of the formats found in the incoming headers.
+ *
+ * A format is detected by looking a few headers up, which the {@link io.gravitee.tracer.jaeger.IndexedHeaders} answer
+ * from the single pass they make over the headers, since these headers are part of the {@link #fields()}. The trace
+ * context is extracted from the first detected format, in the configured order, and the baggage from all of them. All
+ * the formats are injected.
+ *
+ * @author GraviteeSource Team
+ */
+public final class DetectingTextMapPropagator implements TextMapPropagator {
+
+    private final Format[] formats;
+    private final TextMapPropagator injector;
+    private final Collection<String> fields;
+
+    public DetectingTextMapPropagator(List<Format> formats) {
+        this.formats = formats.toArray(new Format[0]);
+
+        List<TextMapPropagator> propagators = new ArrayList<>(formats.size());
+        Set<String> allFields = new LinkedHashSet<>();
+        for (Format format : formats) {
+            propagators.add(format.propagator);
+            allFields.addAll(format.propagator.fields());
+            Collections.addAll(allFields, format.headers);
+        }
+        this.injector = TextMapPropagator.composite(propagators);
+        this.fields = Collections.unmodifiableList(new ArrayList<>(allFields));
+    }
+
+    @Override
+    public Collection<String> fields() {
+        return fields;
+    }
+
+    @Override
+    public <C> void inject(Context context, C carrier, TextMapSetter<C> setter) {
+        injector.inject(context, carrier, setter);
+    }
+
+    @Override
+    public <C> Context extract(Context context, C carrier, TextMapGetter<C> getter) {
+        if (context == null) {
+            context = Context.root();
+        }
+        if (carrier == null || getter == null) {
+            return context;
+        }
+
+        boolean traceExtracted = false;
+        for (Format format : formats) {
+            if ((format.trace && traceExtracted) || !format.isPresent(carrier, getter)) {
+                continue;
+            }
+            context = format.propagator.extract(context, carrier, getter);
+            traceExtracted = traceExtracted || (format.trace && Span.fromContext(context).getSpanContext().isValid());
+        }
+        return context;
+    }
+
+    @Override
+    public String toString() {
+        return "DetectingTextMapPropagator{formats=" + formats.length + "}";
+    }
+
+    public static final class Format {
+
+        private final TextMapPropagator propagator;
+        private final boolean trace;
+        private final String[] headers;
+
+        /**
+         * @param propagator the propagator reading and writing the format.
+         * @param trace whether the format carries the trace context, or only baggage.
+         * @param headers the headers whose presence reveals the format.
+         */
+        public Format(TextMapPropagator propagator, boolean trace, String... headers) {
+            this.propagator = propagator;
+            this.trace = trace;
+            this.headers = headers;
+        }
+
+        private <C> boolean isPresent(C carrier, TextMapGetter<C> getter) {
+            for (String header : headers) {
+                if (getter.get(carrier, header) != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.propagation;
+
+import java.util.Arrays;
+
+/**
+ * Propagation formats, named as the OpenTelemetry <code>otel.propagators</code> setting.
+ *
+ * @author GraviteeSource Team
+ */
+public enum PropagatorType {
+    TRACE_CONTEXT("tracecontext", true, "traceparent"),
+    BAGGAGE("baggage", false, "baggage"),
+    JAEGER("jaeger", true, "uber-trace-id"),
+    // the B3 propagator extracts both the single and the multiple headers formats, whatever it injects
+    B3("b3", true, "b3", "X-B3-TraceId"),
+    B3_MULTI("b3multi", true, "b3", "X-B3-TraceId");
+
+    private final String value;
+    private final boolean trace;
+    private final String[] headers;
+
+    PropagatorType(String value, boolean trace, String... headers) {
+        this.value = value;
+        this.trace = trace;
+        this.headers = headers;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * @return <code>true</code> when the format carries the trace context, <code>false</code> when it only carries
+     * baggage.
+     */
+    public boolean isTrace() {
+        return trace;
+    }
+
+    /**
+     * @return the headers whose presence reveals an incoming request in this format.
+     */
+    public String[] getHeaders() {
+        return headers;
+    }
+
+    public static PropagatorType fromValue(String value) {
+        return Arrays
+            .stream(values())
+            .filter(type -> type.value.equalsIgnoreCase(value))
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("Unsupported propagator: " + value));
+    }
+}
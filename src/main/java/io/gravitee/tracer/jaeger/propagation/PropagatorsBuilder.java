@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.propagation;
+
+import io.gravitee.tracer.jaeger.configuration.JaegerTracerConfiguration;
+import io.opentelemetry.api.baggage.propagation.W3CBaggagePropagator;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import io.opentelemetry.extension.trace.propagation.B3Propagator;
+import io.opentelemetry.extension.trace.propagation.JaegerPropagator;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Builds the propagators reading the trace context of incoming requests and writing it to outgoing ones, from the
+ * configured formats.
+ *
+ * @author GraviteeSource Team
+ */
+public class PropagatorsBuilder {
+
+    private final JaegerTracerConfiguration configuration;
+
+    private PropagatorsBuilder(JaegerTracerConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    public static PropagatorsBuilder from(JaegerTracerConfiguration configuration) {
+        return new PropagatorsBuilder(configuration);
+    }
+
+    public ContextPropagators build() {
+        Set<PropagatorType> types = new LinkedHashSet<>();
+        for (String value : configuration.getPropagators()) {
+            types.add(PropagatorType.fromValue(value.trim()));
+        }
+
+        if (types.size() == 1 && types.contains(PropagatorType.TRACE_CONTEXT)) {
+            return ContextPropagators.create(W3CTraceContextPropagator.getInstance());
+        }
+
+        List<DetectingTextMapPropagator.Format> formats = new ArrayList<>(types.size());
+        for (PropagatorType type : types) {
+            formats.add(new DetectingTextMapPropagator.Format(propagator(type), type.isTrace(), type.getHeaders()));
+        }
+        return ContextPropagators.create(new DetectingTextMapPropagator(formats));
+    }
+
+    private static TextMapPropagator propagator(PropagatorType type) {
+        switch (type) {
+            case BAGGAGE:
+                return W3CBaggagePropagator.getInstance();
+            case JAEGER:
+                return JaegerPropagator.getInstance();
+            case B3:
+                return B3Propagator.injectingSingleHeader();
+            case B3_MULTI:
+                return B3Propagator.injectingMultiHeaders();
+            case TRACE_CONTEXT:
+            default:
+                return W3CTraceContextPropagator.getInstance();
+        }
+    }
+}
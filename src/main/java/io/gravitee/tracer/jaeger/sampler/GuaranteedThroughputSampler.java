@@ -0,0 +1,72 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.sampler;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+import java.util.List;
+
+/**
+ * Probabilistic sampler guaranteeing a minimum number of sampled traces per second, so that rarely called operations
+ * are still traced when their probability is low.
+ *
+ * @author GraviteeSource Team
+ */
+class GuaranteedThroughputSampler implements Sampler {
+
+    private final Sampler probabilistic;
+    private final RateLimitingSampler lowerBound;
+
+    private GuaranteedThroughputSampler(Sampler probabilistic, RateLimitingSampler lowerBound) {
+        this.probabilistic = probabilistic;
+        this.lowerBound = lowerBound;
+    }
+
+    static Sampler of(Sampler probabilistic, double lowerBoundTracesPerSecond) {
+        if (lowerBoundTracesPerSecond <= 0) {
+            return probabilistic;
+        }
+        return new GuaranteedThroughputSampler(probabilistic, new RateLimitingSampler(lowerBoundTracesPerSecond));
+    }
+
+    @Override
+    public SamplingResult shouldSample(
+        Context parentContext,
+        String traceId,
+        String name,
+        SpanKind spanKind,
+        Attributes attributes,
+        List<LinkData> parentLinks
+    ) {
+        SamplingResult result = probabilistic.shouldSample(parentContext, traceId, name, spanKind, attributes, parentLinks);
+        if (result.getDecision() == SamplingDecision.RECORD_AND_SAMPLE) {
+            // the traces sampled by probability count against the lower bound
+            lowerBound.tryAcquire();
+            return result;
+        }
+        return lowerBound.shouldSample(parentContext, traceId, name, spanKind, attributes, parentLinks);
+    }
+
+    @Override
+    public String getDescription() {
+        return "GuaranteedThroughputSampler{" + probabilistic.getDescription() + ", " + lowerBound.getDescription() + "}";
+    }
+}
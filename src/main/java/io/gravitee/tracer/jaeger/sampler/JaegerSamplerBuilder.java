@@ -0,0 +1,182 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.sampler;
+
+import io.gravitee.tracer.jaeger.configuration.JaegerTracerConfiguration;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Builds the head sampler applied to every span started by the tracer.
+ *
+ * Samplers built here only rely on the parent context, the span name and the span kind, so that the sampling decision
+ * can be taken before any attribute is extracted from the request. The remote sampler applies the strategies, possibly
+ * per operation, served by the Jaeger sampling endpoint. The sampling rates of the tracing rules replace the configured
+ * root sampler for the requests they match.
+ *
+ * @author GraviteeSource Team
+ */
+public class JaegerSamplerBuilder {
+
+    private static final Duration REMOTE_TIMEOUT = Duration.ofSeconds(10);
+    private static final String HTTP_THREAD_NAME = "gio-tracer-jaeger-sampling-http";
+
+    private final JaegerTracerConfiguration configuration;
+    private String serviceName;
+    private Consumer<Closeable> resources = resource -> {};
+    private boolean ruleSampling;
+    private boolean recording;
+
+    private JaegerSamplerBuilder(JaegerTracerConfiguration configuration) {
+        this.configuration = configuration;
+        this.ruleSampling = hasRuleSampling(configuration);
+        this.recording = configuration.isRedEnabled();
+    }
+
+    public static JaegerSamplerBuilder from(JaegerTracerConfiguration configuration) {
+        return new JaegerSamplerBuilder(configuration);
+    }
+
+    /**
+     * @param serviceName the service the remote sampling strategy is requested for.
+     */
+    public JaegerSamplerBuilder serviceName(String serviceName) {
+        this.serviceName = serviceName;
+        return this;
+    }
+
+    /**
+     * @param resources receives the resources held by the sampler, such as the remote strategy poller, to close once the
+     *                  sampler is no longer used.
+     */
+    public JaegerSamplerBuilder resources(Consumer<Closeable> resources) {
+        this.resources = resources;
+        return this;
+    }
+
+    /**
+     * @param ruleSampling whether the tracing rules may set a sampler, by default when the rules of the configuration do.
+     */
+    public JaegerSamplerBuilder ruleSampling(boolean ruleSampling) {
+        this.ruleSampling = ruleSampling;
+        return this;
+    }
+
+    /**
+     * @param recording whether every span must be recorded for the RED metrics, by default when the configuration
+     *                  enables them.
+     */
+    public JaegerSamplerBuilder recording(boolean recording) {
+        this.recording = recording;
+        return this;
+    }
+
+    public static boolean hasRuleSampling(JaegerTracerConfiguration configuration) {
+        return configuration.getRules().stream().anyMatch(rule -> rule.getSamplingRate() != null);
+    }
+
+    public Sampler build() {
+        Sampler root = buildRoot();
+        if (ruleSampling) {
+            root = new RuleSampler(root);
+        }
+        Sampler sampler = configuration.isSamplerParentBased() ? Sampler.parentBased(root) : root;
+        // RED metrics are aggregated from all the spans, the sampled ones only being exported
+        return recording ? new RecordingSampler(sampler) : sampler;
+    }
+
+    private Sampler buildRoot() {
+        SamplerType type = SamplerType.fromValue(configuration.getSamplerType());
+        double param = configuration.getSamplerParam();
+
+        switch (type) {
+            case PROBABILISTIC:
+                return Sampler.traceIdRatioBased(Math.max(0, Math.min(1, param)));
+            case RATE_LIMITING:
+                return new RateLimitingSampler(param);
+            case REMOTE:
+                List<Closeable> sourceResources = new ArrayList<>(1);
+                RemoteSampler remoteSampler = new RemoteSampler(
+                    Sampler.traceIdRatioBased(Math.max(0, Math.min(1, param))),
+                    remoteSource(sourceResources::add),
+                    configuration.getSamplerRemoteRefreshInterval()
+                );
+                // the polling stops before the source it reads from is closed
+                resources.accept(remoteSampler);
+                sourceResources.forEach(resources);
+                return remoteSampler;
+            case CONST:
+            default:
+                return param > 0 ? Sampler.alwaysOn() : Sampler.alwaysOff();
+        }
+    }
+
+    private Callable<String> remoteSource(Consumer<Closeable> sourceResources) {
+        if (configuration.getSamplerRemoteFile() != null && !configuration.getSamplerRemoteFile().isEmpty()) {
+            Path file = Path.of(configuration.getSamplerRemoteFile());
+            return () -> Files.readString(file);
+        }
+
+        String url = configuration.getSamplerRemoteUrl();
+        if (serviceName != null) {
+            url += (url.contains("?") ? "&" : "?") + "service=" + URLEncoder.encode(serviceName, StandardCharsets.UTF_8);
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(REMOTE_TIMEOUT).GET().build();
+        ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, HTTP_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        HttpClient client = HttpClient.newBuilder().connectTimeout(REMOTE_TIMEOUT).executor(executor).build();
+        sourceResources.accept(() -> close(client, executor));
+        return () -> {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IOException("Jaeger sampling endpoint responded with status " + response.statusCode());
+            }
+            return response.body();
+        };
+    }
+
+    private static void close(HttpClient client, ExecutorService executor) throws IOException {
+        try {
+            // the client can only be closed from Java 21, before that its connections are released with the executor
+            if (client instanceof AutoCloseable) {
+                ((AutoCloseable) client).close();
+            }
+        } catch (Exception e) {
+            throw new IOException("Unable to close the Jaeger sampling endpoint client", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.sampler;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Samples at most a given number of traces per second.
+ *
+ * The limiter is a lock-free implementation of the generic cell rate algorithm: a single theoretical arrival time is
+ * moved forward by one emission interval for each sampled trace, allowing a burst of up to one second of traffic.
+ *
+ * @author GraviteeSource Team
+ */
+public class RateLimitingSampler implements Sampler {
+
+    static final AttributeKey<String> SAMPLER_TYPE = AttributeKey.stringKey("sampler.type");
+    static final AttributeKey<Double> SAMPLER_PARAM = AttributeKey.doubleKey("sampler.param");
+
+    private final double maxTracesPerSecond;
+    private final long emissionInterval;
+    private final long burstTolerance;
+    private final AtomicLong theoreticalArrivalTime;
+    private final SamplingResult sampled;
+    private final SamplingResult notSampled;
+
+    public RateLimitingSampler(double maxTracesPerSecond) {
+        this.maxTracesPerSecond = maxTracesPerSecond;
+        this.emissionInterval = maxTracesPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / maxTracesPerSecond) : Long.MAX_VALUE;
+        this.burstTolerance = maxTracesPerSecond > 0 ? Math.max(emissionInterval, TimeUnit.SECONDS.toNanos(1)) : 0;
+        this.theoreticalArrivalTime = new AtomicLong(System.nanoTime());
+
+        Attributes attributes = Attributes.of(SAMPLER_TYPE, SamplerType.RATE_LIMITING.getValue(), SAMPLER_PARAM, maxTracesPerSecond);
+        this.sampled = SamplingResult.create(SamplingDecision.RECORD_AND_SAMPLE, attributes);
+        this.notSampled = SamplingResult.create(SamplingDecision.DROP, attributes);
+    }
+
+    @Override
+    public SamplingResult shouldSample(
+        Context parentContext,
+        String traceId,
+        String name,
+        SpanKind spanKind,
+        Attributes attributes,
+        List<LinkData> parentLinks
+    ) {
+        return tryAcquire() ? sampled : notSampled;
+    }
+
+    boolean tryAcquire() {
+        if (emissionInterval == Long.MAX_VALUE) {
+            return false;
+        }
+
+        while (true) {
+            long now = System.nanoTime();
+            long current = theoreticalArrivalTime.get();
+            long next = Math.max(current, now) + emissionInterval;
+            if (next - now > burstTolerance) {
+                return false;
+            }
+            if (theoreticalArrivalTime.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public String getDescription() {
+        return "RateLimitingSampler{" + maxTracesPerSecond + "}";
+    }
+}
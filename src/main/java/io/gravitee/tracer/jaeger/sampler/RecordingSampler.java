@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.sampler;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+import java.util.List;
+
+/**
+ * Records the spans the delegate sampler drops, without sampling them. They reach the span processors, which can
+ * aggregate them into metrics, but are not exported.
+ *
+ * @author GraviteeSource Team
+ */
+public class RecordingSampler implements Sampler {
+
+    private final Sampler delegate;
+
+    public RecordingSampler(Sampler delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public SamplingResult shouldSample(
+        Context parentContext,
+        String traceId,
+        String name,
+        SpanKind spanKind,
+        Attributes attributes,
+        List<LinkData> parentLinks
+    ) {
+        SamplingResult result = delegate.shouldSample(parentContext, traceId, name, spanKind, attributes, parentLinks);
+        if (result.getDecision() != SamplingDecision.DROP) {
+            return result;
+        }
+        // the built-in samplers drop with a shared result, with no attributes and leaving the trace state untouched
+        if (result == SamplingResult.drop()) {
+            return SamplingResult.recordOnly();
+        }
+        return new RecordOnlyResult(result);
+    }
+
+    @Override
+    public String getDescription() {
+        return "RecordingSampler{" + delegate.getDescription() + "}";
+    }
+
+    private static final class RecordOnlyResult implements SamplingResult {
+
+        private final SamplingResult dropped;
+
+        private RecordOnlyResult(SamplingResult dropped) {
+            this.dropped = dropped;
+        }
+
+        @Override
+        public SamplingDecision getDecision() {
+            return SamplingDecision.RECORD_ONLY;
+        }
+
+        @Override
+        public Attributes getAttributes() {
+            return dropped.getAttributes();
+        }
+
+        @Override
+        public TraceState getUpdatedTraceState(TraceState parentTraceState) {
+            return dropped.getUpdatedTraceState(parentTraceState);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.sampler;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+import java.io.Closeable;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Samples according to the strategy served by the Jaeger sampling endpoint (or a file standing for it), which is
+ * polled in the background so that sampling rates can be changed centrally without restarting the gateways.
+ *
+ * The strategy is parsed into a sampler only when its content changes, keeping the rate limiters state across polls.
+ * Until a strategy is loaded, and whenever it cannot be loaded, the last known sampler is kept.
+ *
+ * @author GraviteeSource Team
+ */
+@Slf4j
+public class RemoteSampler implements Sampler, Closeable {
+
+    private static final String POLLER_THREAD_NAME = "gio-tracer-jaeger-sampling";
+
+    private final Callable<String> source;
+    private final ScheduledExecutorService poller;
+    private volatile Sampler delegate;
+    private String strategy;
+
+    /**
+     * @param initial the sampler used until a strategy is loaded.
+     * @param source loads the strategy, in the JSON format of the Jaeger sampling endpoint.
+     * @param refreshInterval the delay (in milliseconds) between two loads.
+     */
+    public RemoteSampler(Sampler initial, Callable<String> source, long refreshInterval) {
+        this.delegate = initial;
+        this.source = source;
+        this.poller =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, POLLER_THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.poller.scheduleWithFixedDelay(this::refresh, 0, Math.max(1, refreshInterval), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public SamplingResult shouldSample(
+        Context parentContext,
+        String traceId,
+        String name,
+        SpanKind spanKind,
+        Attributes attributes,
+        List<LinkData> parentLinks
+    ) {
+        return delegate.shouldSample(parentContext, traceId, name, spanKind, attributes, parentLinks);
+    }
+
+    @Override
+    public String getDescription() {
+        return "RemoteSampler{" + delegate.getDescription() + "}";
+    }
+
+    Sampler getDelegate() {
+        return delegate;
+    }
+
+    // the poller and a manual refresh must not interleave, or a stale strategy could replace a newer one
+    synchronized void refresh() {
+        try {
+            String loaded = source.call();
+            if (loaded == null || Objects.equals(loaded, strategy)) {
+                return;
+            }
+            delegate = SamplingStrategies.parse(loaded);
+            strategy = loaded;
+            log.debug("Jaeger sampling strategy updated: {}", delegate.getDescription());
+        } catch (Exception e) {
+            log.warn("Unable to load the Jaeger sampling strategy, keeping the current one: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        poller.shutdownNow();
+    }
+}
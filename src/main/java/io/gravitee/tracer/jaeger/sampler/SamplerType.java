@@ -0,0 +1,46 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.sampler;
+
+import java.util.Arrays;
+
+/**
+ * @author GraviteeSource Team
+ */
+public enum SamplerType {
+    CONST("const"),
+    PROBABILISTIC("probabilistic"),
+    RATE_LIMITING("ratelimiting"),
+    REMOTE("remote");
+
+    private final String value;
+
+    SamplerType(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public static SamplerType fromValue(String value) {
+        return Arrays
+            .stream(values())
+            .filter(type -> type.value.equalsIgnoreCase(value))
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("Unsupported Jaeger sampler type: " + value));
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.sampler;
+
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parses the sampling strategies served by the Jaeger sampling endpoint:
+ *
+ * <pre>
+ * {
+ *   "strategyType": "PROBABILISTIC",
+ *   "probabilisticSampling": { "samplingRate": 0.1 },
+ *   "rateLimitingSampling": { "maxTracesPerSecond": 10 },
+ *   "operationSampling": {
+ *     "defaultSamplingProbability": 0.1,
+ *     "defaultLowerBoundTracesPerSecond": 1,
+ *     "perOperationStrategies": [
+ *       { "operation": "GET", "probabilisticSampling": { "samplingRate": 0.01 } },
+ *       { "operation": "POST", "rateLimitingSampling": { "maxTracesPerSecond": 5 } }
+ *     ]
+ *   }
+ * }
+ * </pre>
+ *
+ * Rate limiting per operation is not part of the Jaeger protocol, it is accepted so that hot operations can be capped.
+ *
+ * @author GraviteeSource Team
+ */
+final class SamplingStrategies {
+
+    private static final String PROBABILISTIC = "PROBABILISTIC";
+    private static final String RATE_LIMITING = "RATE_LIMITING";
+
+    private SamplingStrategies() {}
+
+    static Sampler parse(String strategy) {
+        JsonObject json = new JsonObject(strategy);
+
+        JsonObject operationSampling = json.getJsonObject("operationSampling");
+        if (operationSampling != null) {
+            return perOperation(operationSampling, json);
+        }
+
+        // older agents serialize the strategy type as its enum ordinal
+        Object type = json.getValue("strategyType", PROBABILISTIC);
+        if (RATE_LIMITING.equals(type) || Integer.valueOf(1).equals(type)) {
+            return new RateLimitingSampler(rateLimit(json.getJsonObject("rateLimitingSampling")));
+        }
+        if (PROBABILISTIC.equals(type) || Integer.valueOf(0).equals(type)) {
+            return probabilistic(probability(json.getJsonObject("probabilisticSampling"), 1));
+        }
+        throw new IllegalArgumentException("Unsupported Jaeger sampling strategy type: " + type);
+    }
+
+    private static Sampler perOperation(JsonObject operationSampling, JsonObject json) {
+        double defaultProbability = operationSampling.getDouble(
+            "defaultSamplingProbability",
+            probability(json.getJsonObject("probabilisticSampling"), 1)
+        );
+        double lowerBound = operationSampling.getDouble("defaultLowerBoundTracesPerSecond", 0d);
+
+        Map<String, Sampler> operations = new HashMap<>();
+        JsonArray strategies = operationSampling.getJsonArray("perOperationStrategies", new JsonArray());
+        for (int i = 0; i < strategies.size(); i++) {
+            JsonObject strategy = strategies.getJsonObject(i);
+            String operation = strategy.getString("operation");
+            if (operation == null) {
+                continue;
+            }
+            JsonObject rateLimiting = strategy.getJsonObject("rateLimitingSampling");
+            if (rateLimiting != null) {
+                operations.put(operation, new RateLimitingSampler(rateLimit(rateLimiting)));
+            } else {
+                double probability = probability(strategy.getJsonObject("probabilisticSampling"), defaultProbability);
+                operations.put(operation, GuaranteedThroughputSampler.of(probabilistic(probability), lowerBound));
+            }
+        }
+
+        return new PerOperationSampler(operations, GuaranteedThroughputSampler.of(probabilistic(defaultProbability), lowerBound));
+    }
+
+    private static double probability(JsonObject probabilisticSampling, double defaultValue) {
+        return probabilisticSampling == null ? defaultValue : probabilisticSampling.getDouble("samplingRate", defaultValue);
+    }
+
+    private static double rateLimit(JsonObject rateLimitingSampling) {
+        return rateLimitingSampling == null ? 0 : rateLimitingSampling.getDouble("maxTracesPerSecond", 0d);
+    }
+
+    private static Sampler probabilistic(double probability) {
+        return Sampler.traceIdRatioBased(Math.max(0, Math.min(1, probability)));
+    }
+}
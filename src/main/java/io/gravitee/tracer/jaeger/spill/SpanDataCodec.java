@@ -0,0 +1,371 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.spill;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.AttributeType;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.api.trace.TraceStateBuilder;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.data.EventData;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.data.StatusData;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary (de)serialization of {@link SpanData}, so that spans can be written to the spill buffer and exported again later.
+ * The {@link Resource} of the spans is encoded on its own, to be written once per spill segment rather than per span.
+ *
+ * @author GraviteeSource Team
+ */
+final class SpanDataCodec {
+
+    private static final byte VERSION = 2;
+
+    private static final SpanKind[] SPAN_KINDS = SpanKind.values();
+    private static final StatusCode[] STATUS_CODES = StatusCode.values();
+    private static final AttributeType[] ATTRIBUTE_TYPES = AttributeType.values();
+
+    private SpanDataCodec() {}
+
+    static byte[] encode(SpanData span) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeByte(VERSION);
+        writeSpanContext(out, span.getSpanContext());
+        writeSpanContext(out, span.getParentSpanContext());
+        writeScope(out, span.getInstrumentationScopeInfo());
+        writeString(out, span.getName());
+        out.writeByte(span.getKind().ordinal());
+        out.writeLong(span.getStartEpochNanos());
+        out.writeLong(span.getEndEpochNanos());
+        out.writeBoolean(span.hasEnded());
+        out.writeByte(span.getStatus().getStatusCode().ordinal());
+        writeString(out, span.getStatus().getDescription());
+        writeAttributes(out, span.getAttributes());
+        out.writeInt(span.getTotalAttributeCount());
+
+        out.writeInt(span.getEvents().size());
+        for (EventData event : span.getEvents()) {
+            out.writeLong(event.getEpochNanos());
+            writeString(out, event.getName());
+            writeAttributes(out, event.getAttributes());
+            out.writeInt(event.getTotalAttributeCount());
+        }
+        out.writeInt(span.getTotalRecordedEvents());
+
+        out.writeInt(span.getLinks().size());
+        for (LinkData link : span.getLinks()) {
+            writeSpanContext(out, link.getSpanContext());
+            writeAttributes(out, link.getAttributes());
+            out.writeInt(link.getTotalAttributeCount());
+        }
+        out.writeInt(span.getTotalRecordedLinks());
+
+        return bytes.toByteArray();
+    }
+
+    static SpanData decode(byte[] record, Resource resource) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported spilled span version " + version);
+        }
+
+        SpilledSpanData.SpilledSpanDataBuilder span = SpilledSpanData
+            .builder()
+            .spanContext(readSpanContext(in))
+            .parentSpanContext(readSpanContext(in))
+            .resource(resource)
+            .instrumentationScopeInfo(readScope(in))
+            .name(readString(in))
+            .kind(readEnum(in, SPAN_KINDS))
+            .startEpochNanos(in.readLong())
+            .endEpochNanos(in.readLong())
+            .ended(in.readBoolean())
+            .status(StatusData.create(readEnum(in, STATUS_CODES), readString(in)))
+            .attributes(readAttributes(in))
+            .totalAttributeCount(in.readInt());
+
+        int eventCount = readLength(in);
+        List<EventData> events = new ArrayList<>(eventCount);
+        for (int i = 0; i < eventCount; i++) {
+            events.add(EventData.create(in.readLong(), readString(in), readAttributes(in), in.readInt()));
+        }
+        span.events(events).totalRecordedEvents(in.readInt());
+
+        int linkCount = readLength(in);
+        List<LinkData> links = new ArrayList<>(linkCount);
+        for (int i = 0; i < linkCount; i++) {
+            links.add(LinkData.create(readSpanContext(in), readAttributes(in), in.readInt()));
+        }
+        span.links(links).totalRecordedLinks(in.readInt());
+
+        return span.build();
+    }
+
+    private static void writeSpanContext(DataOutput out, SpanContext context) throws IOException {
+        out.writeBoolean(context.isValid());
+        if (!context.isValid()) {
+            return;
+        }
+
+        writeString(out, context.getTraceId());
+        writeString(out, context.getSpanId());
+        out.writeByte(context.getTraceFlags().asByte());
+        out.writeBoolean(context.isRemote());
+
+        Map<String, String> traceState = context.getTraceState().asMap();
+        out.writeInt(traceState.size());
+        for (Map.Entry<String, String> entry : traceState.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+    }
+
+    private static SpanContext readSpanContext(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return SpanContext.getInvalid();
+        }
+
+        String traceId = readString(in);
+        String spanId = readString(in);
+        TraceFlags traceFlags = TraceFlags.fromByte(in.readByte());
+        boolean remote = in.readBoolean();
+
+        int traceStateSize = readLength(in);
+        TraceStateBuilder traceState = TraceState.builder();
+        for (int i = 0; i < traceStateSize; i++) {
+            traceState.put(readString(in), readString(in));
+        }
+
+        return remote
+            ? SpanContext.createFromRemoteParent(traceId, spanId, traceFlags, traceState.build())
+            : SpanContext.create(traceId, spanId, traceFlags, traceState.build());
+    }
+
+    static byte[] encodeResource(Resource resource) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeByte(VERSION);
+        writeNullableString(out, resource.getSchemaUrl());
+        writeAttributes(out, resource.getAttributes());
+
+        return bytes.toByteArray();
+    }
+
+    static Resource decodeResource(byte[] metadata) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(metadata));
+
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported spilled resource version " + version);
+        }
+
+        String schemaUrl = readNullableString(in);
+        return Resource.create(readAttributes(in), schemaUrl);
+    }
+
+    private static void writeScope(DataOutput out, InstrumentationScopeInfo scope) throws IOException {
+        writeString(out, scope.getName());
+        writeNullableString(out, scope.getVersion());
+        writeNullableString(out, scope.getSchemaUrl());
+    }
+
+    private static InstrumentationScopeInfo readScope(DataInputStream in) throws IOException {
+        String name = readString(in);
+        String version = readNullableString(in);
+        String schemaUrl = readNullableString(in);
+        return InstrumentationScopeInfo.builder(name).setVersion(version).setSchemaUrl(schemaUrl).build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeAttributes(DataOutput out, Attributes attributes) throws IOException {
+        out.writeInt(attributes.size());
+        for (Map.Entry<AttributeKey<?>, Object> entry : attributes.asMap().entrySet()) {
+            AttributeKey<?> key = entry.getKey();
+            writeString(out, key.getKey());
+            out.writeByte(key.getType().ordinal());
+
+            Object value = entry.getValue();
+            switch (key.getType()) {
+                case STRING:
+                    writeString(out, (String) value);
+                    break;
+                case BOOLEAN:
+                    out.writeBoolean((Boolean) value);
+                    break;
+                case LONG:
+                    out.writeLong((Long) value);
+                    break;
+                case DOUBLE:
+                    out.writeDouble((Double) value);
+                    break;
+                case STRING_ARRAY:
+                    List<String> strings = (List<String>) value;
+                    out.writeInt(strings.size());
+                    for (String string : strings) {
+                        writeString(out, string);
+                    }
+                    break;
+                case BOOLEAN_ARRAY:
+                    List<Boolean> booleans = (List<Boolean>) value;
+                    out.writeInt(booleans.size());
+                    for (Boolean bool : booleans) {
+                        out.writeBoolean(bool);
+                    }
+                    break;
+                case LONG_ARRAY:
+                    List<Long> longs = (List<Long>) value;
+                    out.writeInt(longs.size());
+                    for (Long number : longs) {
+                        out.writeLong(number);
+                    }
+                    break;
+                case DOUBLE_ARRAY:
+                    List<Double> doubles = (List<Double>) value;
+                    out.writeInt(doubles.size());
+                    for (Double number : doubles) {
+                        out.writeDouble(number);
+                    }
+                    break;
+                default:
+                    throw new IOException("Unsupported attribute type " + key.getType());
+            }
+        }
+    }
+
+    private static Attributes readAttributes(DataInputStream in) throws IOException {
+        int size = readLength(in);
+        if (size == 0) {
+            return Attributes.empty();
+        }
+
+        AttributesBuilder attributes = Attributes.builder();
+        for (int i = 0; i < size; i++) {
+            String key = readString(in);
+            AttributeType type = readEnum(in, ATTRIBUTE_TYPES);
+            switch (type) {
+                case STRING:
+                    attributes.put(AttributeKey.stringKey(key), readString(in));
+                    break;
+                case BOOLEAN:
+                    attributes.put(AttributeKey.booleanKey(key), in.readBoolean());
+                    break;
+                case LONG:
+                    attributes.put(AttributeKey.longKey(key), in.readLong());
+                    break;
+                case DOUBLE:
+                    attributes.put(AttributeKey.doubleKey(key), in.readDouble());
+                    break;
+                case STRING_ARRAY:
+                    List<String> strings = new ArrayList<>();
+                    for (int j = readLength(in); j > 0; j--) {
+                        strings.add(readString(in));
+                    }
+                    attributes.put(AttributeKey.stringArrayKey(key), strings);
+                    break;
+                case BOOLEAN_ARRAY:
+                    List<Boolean> booleans = new ArrayList<>();
+                    for (int j = readLength(in); j > 0; j--) {
+                        booleans.add(in.readBoolean());
+                    }
+                    attributes.put(AttributeKey.booleanArrayKey(key), booleans);
+                    break;
+                case LONG_ARRAY:
+                    List<Long> longs = new ArrayList<>();
+                    for (int j = readLength(in); j > 0; j--) {
+                        longs.add(in.readLong());
+                    }
+                    attributes.put(AttributeKey.longArrayKey(key), longs);
+                    break;
+                case DOUBLE_ARRAY:
+                    List<Double> doubles = new ArrayList<>();
+                    for (int j = readLength(in); j > 0; j--) {
+                        doubles.add(in.readDouble());
+                    }
+                    attributes.put(AttributeKey.doubleArrayKey(key), doubles);
+                    break;
+                default:
+                    throw new IOException("Unsupported attribute type " + type);
+            }
+        }
+        return attributes.build();
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readLength(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a length or a count, which cannot exceed the bytes left in the record as every item takes at least one byte,
+     * so that a corrupted record fails instead of allocating whatever it says.
+     */
+    private static int readLength(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) {
+            throw new IOException("Corrupted spilled span, invalid length " + length);
+        }
+        return length;
+    }
+
+    private static <E> E readEnum(DataInputStream in, E[] values) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        if (ordinal >= values.length) {
+            throw new IOException("Corrupted spilled span, invalid ordinal " + ordinal);
+        }
+        return values[ordinal];
+    }
+
+    private static void writeNullableString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writeString(out, value);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? readString(in) : null;
+    }
+}
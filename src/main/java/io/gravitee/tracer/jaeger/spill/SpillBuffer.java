@@ -0,0 +1,446 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.spill;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only log of records stored in fixed size, memory-mapped segment files.
+ *
+ * Records are read back in the order they were appended. A read is only acknowledged with {@link #commit(int)}, so that
+ * records survive a failed replay and a restart of the gateway. Appending fails once the segments would exceed the
+ * configured maximum size. Each segment holds, once, the metadata shared by its records, such as the resource of the
+ * spans, a new segment being started when it changes. The directory is locked while the buffer is open, so that two gateways sharing a host
+ * cannot replay, and delete, the segments of each other.
+ *
+ * @author GraviteeSource Team
+ */
+@Slf4j
+public class SpillBuffer implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".spill";
+    private static final String LOCK_FILE = "spill.lock";
+
+    private static final int MAGIC = 0x47494f54;
+    private static final int WRITE_POSITION_OFFSET = 4;
+    private static final int READ_POSITION_OFFSET = 8;
+    private static final int METADATA_LENGTH_OFFSET = 12;
+    private static final int HEADER_SIZE = 16;
+    private static final byte[] NO_METADATA = new byte[0];
+    private static final int RECORD_HEADER_SIZE = 4;
+
+    private final Path directory;
+    private final long maxSize;
+    private final int segmentSize;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+
+    private long nextSegmentId;
+    private long pendingRecords;
+    private boolean closed;
+
+    public SpillBuffer(Path directory, long maxSize, int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = Math.max(segmentSize, HEADER_SIZE + RECORD_HEADER_SIZE + 1);
+        this.maxSize = Math.max(maxSize, this.segmentSize);
+
+        Files.createDirectories(directory);
+        this.lockChannel =
+            FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.lock = tryLock(lockChannel);
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException("The spill directory " + directory + " is already used by another tracer");
+        }
+
+        try {
+            load();
+        } catch (IOException | RuntimeException e) {
+            releaseLock();
+            throw e;
+        }
+    }
+
+    public boolean append(byte[] record) throws IOException {
+        return append(NO_METADATA, record);
+    }
+
+    /**
+     * @param metadata the metadata shared by the records of a segment, usually the same array for all the records.
+     * @return <code>false</code> when the record does not fit in the buffer anymore, or the buffer is closed.
+     */
+    public synchronized boolean append(byte[] metadata, byte[] record) throws IOException {
+        if (closed) {
+            // the directory lock is released, a new segment could clash with the next process using the directory
+            return false;
+        }
+
+        int recordSize = RECORD_HEADER_SIZE + record.length;
+        if (recordSize > segmentSize - HEADER_SIZE - metadata.length) {
+            return false;
+        }
+
+        Segment tail = segments.peekLast();
+        if (tail == null || tail.remaining() < recordSize || !tail.hasMetadata(metadata)) {
+            if ((segments.size() + 1L) * segmentSize > maxSize) {
+                return false;
+            }
+            tail = createSegment(nextSegmentId++, metadata);
+            segments.addLast(tail);
+        }
+
+        tail.append(record);
+        pendingRecords++;
+        return true;
+    }
+
+    /**
+     * Read, without acknowledging them, the oldest records of the buffer.
+     */
+    public List<byte[]> peek(int max) {
+        List<byte[]> records = new ArrayList<>();
+        peek(max, (metadata, record) -> records.add(record));
+        return records;
+    }
+
+    /**
+     * Read, without acknowledging them, the oldest records of the buffer along with the metadata of their segment, the
+     * same array being given for all the records of a segment.
+     *
+     * @return the number of records read.
+     */
+    public synchronized int peek(int max, BiConsumer<byte[], byte[]> reader) {
+        if (closed) {
+            return 0;
+        }
+
+        int read = 0;
+        Iterator<Segment> iterator = segments.iterator();
+        while (read < max && iterator.hasNext()) {
+            read += iterator.next().read(reader, max - read);
+        }
+        return read;
+    }
+
+    /**
+     * Acknowledge the given number of oldest records, releasing the segments which have been fully read.
+     */
+    public synchronized void commit(int count) {
+        while (count > 0 && !segments.isEmpty()) {
+            Segment head = segments.peekFirst();
+            int skipped = head.skip(count);
+            count -= skipped;
+            pendingRecords -= skipped;
+
+            if (head.isFullyRead()) {
+                if (segments.size() > 1) {
+                    segments.removeFirst();
+                    head.delete();
+                } else {
+                    head.reset();
+                    break;
+                }
+            } else if (skipped == 0) {
+                break;
+            }
+        }
+    }
+
+    public synchronized long size() {
+        return pendingRecords;
+    }
+
+    public synchronized boolean isEmpty() {
+        return pendingRecords == 0;
+    }
+
+    @Override
+    /**
+     * Writes the segments to disk and releases the directory. The buffer then rejects every record and looks empty.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        segments.forEach(Segment::force);
+        segments.clear();
+        pendingRecords = 0;
+        releaseLock();
+    }
+
+    // the lock is held by the process, a second buffer of the same process on the same directory is refused as well
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            return null;
+        }
+    }
+
+    private void releaseLock() {
+        try {
+            lock.release();
+            lockChannel.close();
+        } catch (IOException e) {
+            log.debug("Unable to release the lock of the spill directory {}", directory, e);
+        }
+    }
+
+    private void load() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files =
+                stream
+                    .filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        for (Path file : files) {
+            Segment segment = openSegment(file);
+            if (segment == null) {
+                log.warn("Ignoring invalid spill segment {}", file);
+                Files.deleteIfExists(file);
+                continue;
+            }
+
+            if (segment.isFullyRead()) {
+                segment.delete();
+                continue;
+            }
+
+            segments.addLast(segment);
+            pendingRecords += segment.countUnread();
+        }
+
+        nextSegmentId = files.isEmpty() ? 0 : segmentId(files.get(files.size() - 1)) + 1;
+
+        if (pendingRecords > 0) {
+            log.info("{} spilled spans found in {}, they will be replayed", pendingRecords, directory);
+        }
+    }
+
+    private Segment createSegment(long id, byte[] metadata) throws IOException {
+        Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+        try (
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)
+        ) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(METADATA_LENGTH_OFFSET, metadata.length);
+            buffer.put(HEADER_SIZE, metadata);
+            Segment segment = new Segment(file, buffer, metadata);
+            segment.reset();
+            return segment;
+        }
+    }
+
+    private Segment openSegment(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                return null;
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (buffer.getInt(0) != MAGIC) {
+                return null;
+            }
+
+            int metadataLength = buffer.getInt(METADATA_LENGTH_OFFSET);
+            if (metadataLength < 0 || metadataLength > size - HEADER_SIZE) {
+                return null;
+            }
+            byte[] metadata = new byte[metadataLength];
+            buffer.get(HEADER_SIZE, metadata);
+
+            Segment segment = new Segment(file, buffer, metadata);
+            return segment.isValid() ? segment : null;
+        }
+    }
+
+    private static long segmentId(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * A segment file starts with a header made of a magic number, the write position, the read position and the length
+     * of the metadata, followed by the metadata and the length prefixed records.
+     */
+    private static final class Segment {
+
+        private final Path file;
+        private final MappedByteBuffer buffer;
+        private final byte[] metadata;
+
+        private Segment(Path file, MappedByteBuffer buffer, byte[] metadata) {
+            this.file = file;
+            this.buffer = buffer;
+            this.metadata = metadata;
+        }
+
+        private int dataStart() {
+            return HEADER_SIZE + metadata.length;
+        }
+
+        private boolean hasMetadata(byte[] other) {
+            return metadata == other || Arrays.equals(metadata, other);
+        }
+
+        private int writePosition() {
+            return buffer.getInt(WRITE_POSITION_OFFSET);
+        }
+
+        private int readPosition() {
+            return buffer.getInt(READ_POSITION_OFFSET);
+        }
+
+        private boolean isValid() {
+            int writePosition = writePosition();
+            int readPosition = readPosition();
+            return readPosition >= dataStart() && readPosition <= writePosition && writePosition <= buffer.capacity();
+        }
+
+        private int remaining() {
+            return buffer.capacity() - writePosition();
+        }
+
+        private boolean isFullyRead() {
+            return readPosition() == writePosition();
+        }
+
+        private void append(byte[] record) {
+            int position = writePosition();
+            buffer.putInt(position, record.length);
+            buffer.put(position + RECORD_HEADER_SIZE, record);
+            // the write position is updated last, so that a partially written record is never read back
+            buffer.putInt(WRITE_POSITION_OFFSET, position + RECORD_HEADER_SIZE + record.length);
+        }
+
+        private int read(BiConsumer<byte[], byte[]> reader, int max) {
+            int read = 0;
+            int position = readPosition();
+            int writePosition = writePosition();
+            while (read < max && position < writePosition) {
+                int end = recordEnd(position, writePosition);
+                if (end < 0) {
+                    break;
+                }
+                byte[] record = new byte[end - position - RECORD_HEADER_SIZE];
+                buffer.get(position + RECORD_HEADER_SIZE, record);
+                reader.accept(metadata, record);
+                read++;
+                position = end;
+            }
+            return read;
+        }
+
+        private int skip(int max) {
+            int position = readPosition();
+            int writePosition = writePosition();
+            int skipped = 0;
+            while (skipped < max && position < writePosition) {
+                int end = recordEnd(position, writePosition);
+                if (end < 0) {
+                    break;
+                }
+                position = end;
+                skipped++;
+            }
+            buffer.putInt(READ_POSITION_OFFSET, position);
+            return skipped;
+        }
+
+        /**
+         * Counts the records left to read, and truncates the segment before the first one whose length does not fit in
+         * what has been written, as a file written to disk may be corrupted.
+         */
+        private long countUnread() {
+            long count = 0;
+            int position = readPosition();
+            int writePosition = writePosition();
+            while (position < writePosition) {
+                int end = recordEnd(position, writePosition);
+                if (end < 0) {
+                    log.warn("Spill segment {} is corrupted, {} bytes are dropped", file, writePosition - position);
+                    buffer.putInt(WRITE_POSITION_OFFSET, position);
+                    break;
+                }
+                position = end;
+                count++;
+            }
+            return count;
+        }
+
+        /**
+         * @return the position following the record starting at the given position, or -1 if its length is invalid.
+         */
+        private int recordEnd(int position, int writePosition) {
+            if (writePosition - position < RECORD_HEADER_SIZE) {
+                return -1;
+            }
+            int length = buffer.getInt(position);
+            if (length < 0 || length > writePosition - position - RECORD_HEADER_SIZE) {
+                return -1;
+            }
+            return position + RECORD_HEADER_SIZE + length;
+        }
+
+        private void reset() {
+            buffer.putInt(WRITE_POSITION_OFFSET, dataStart());
+            buffer.putInt(READ_POSITION_OFFSET, dataStart());
+        }
+
+        private void force() {
+            buffer.force();
+        }
+
+        private void delete() {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Unable to delete the spill segment {}", file, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,336 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.spill;
+
+import io.gravitee.tracer.jaeger.configuration.JaegerTracerConfiguration;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Exports spans through a delegate {@link SpanExporter}, and spills them to a {@link SpillBuffer} when the export fails
+ * or when the batch queue overflows.
+ *
+ * Spilled spans are replayed in order from a dedicated thread once the collector accepts them again. While some spans are
+ * waiting on disk, newly exported spans are appended after them so that the export order is kept. Nothing here runs on
+ * the event loop: overflowing spans are only handed over to the spill thread through a bounded queue.
+ *
+ * @author GraviteeSource Team
+ */
+@Slf4j
+public class SpillingSpanExporter implements SpanExporter {
+
+    private static final String SPILL_THREAD_NAME = "gio-tracer-jaeger-spill";
+    private static final String DEFAULT_DIRECTORY = "gravitee-tracer-jaeger-spill";
+
+    private final SpanExporter delegate;
+    private final SpillBuffer buffer;
+    private final BlockingQueue<ReadableSpan> overflow;
+    private final int replayBatchSize;
+    private final long exportTimeoutNanos;
+    private final long replayIntervalNanos;
+    private final long shutdownTimeoutNanos;
+
+    private final LongAdder spilledSpans = new LongAdder();
+    private final LongAdder replayedSpans = new LongAdder();
+    private final LongAdder droppedSpans = new LongAdder();
+
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile long shutdownDeadline;
+    private volatile boolean shutdownDeadlineSet;
+    private volatile EncodedResource lastResource;
+    private long nextReplayTime;
+
+    public SpillingSpanExporter(SpanExporter delegate, SpillBuffer buffer, JaegerTracerConfiguration configuration) {
+        this.delegate = delegate;
+        this.buffer = buffer;
+        this.overflow = new ArrayBlockingQueue<>(Math.max(1, configuration.getBatchMaxQueueSize()));
+        this.replayBatchSize = Math.max(1, configuration.getBatchMaxExportBatchSize());
+        this.exportTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, configuration.getBatchExportTimeout()));
+        this.replayIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, configuration.getSpillReplayInterval()));
+        this.shutdownTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, configuration.getShutdownTimeout()));
+
+        this.thread = new Thread(this::run, SPILL_THREAD_NAME);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public static SpillingSpanExporter create(SpanExporter delegate, JaegerTracerConfiguration configuration) throws IOException {
+        Path directory = configuration.getSpillDirectory() == null || configuration.getSpillDirectory().isEmpty()
+            ? Paths.get(System.getProperty("java.io.tmpdir"), DEFAULT_DIRECTORY)
+            : Paths.get(configuration.getSpillDirectory());
+
+        return new SpillingSpanExporter(
+            delegate,
+            new SpillBuffer(directory, configuration.getSpillMaxSize(), configuration.getSpillSegmentSize()),
+            configuration
+        );
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> spans) {
+        if (buffer.isEmpty()) {
+            CompletableResultCode result = exportAndWait(spans);
+            if (result.isSuccess()) {
+                return result;
+            }
+        }
+
+        // either the collector is unavailable, or older spans are still waiting to be replayed. The spans which do not fit
+        // in the spill buffer are counted here, so the export is not reported as failed to the batch processor
+        spill(spans);
+        return CompletableResultCode.ofSuccess();
+    }
+
+    /**
+     * Wait for an export, failing it when it times out so that the delegate does not retry spans which are about to be
+     * spilled.
+     */
+    private CompletableResultCode exportAndWait(Collection<SpanData> spans) {
+        CompletableResultCode result = delegate.export(spans);
+        result.join(exportTimeoutNanos, TimeUnit.NANOSECONDS);
+        if (!result.isDone()) {
+            result.fail();
+        }
+        return result;
+    }
+
+    /**
+     * Hand over a span which does not fit in the batch queue. Never blocks, so it can be called from the event loop.
+     *
+     * @return <code>false</code> if the span has been dropped.
+     */
+    public boolean offer(ReadableSpan span) {
+        return overflow.offer(span);
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return delegate.flush();
+    }
+
+    /**
+     * Sets the time, as given by {@link System#nanoTime()}, by which the tracer must be stopped, so that the wait for the
+     * spill thread only uses what is left of the shutdown timeout once the queued spans are flushed.
+     */
+    public void shutdownBefore(long deadline) {
+        this.shutdownDeadline = deadline;
+        this.shutdownDeadlineSet = true;
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        running = false;
+        thread.interrupt();
+
+        long remaining = shutdownDeadlineSet ? shutdownDeadline - System.nanoTime() : shutdownTimeoutNanos;
+        long wait = Math.min(exportTimeoutNanos, remaining);
+        // a join of 0 would wait forever, the spill thread is then left to stop on its own
+        if (wait >= TimeUnit.MILLISECONDS.toNanos(1)) {
+            try {
+                thread.join(TimeUnit.NANOSECONDS.toMillis(wait));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // spans still waiting in memory are kept on disk, they will be replayed on the next start
+        drainOverflow();
+        buffer.close();
+
+        return delegate.shutdown();
+    }
+
+    /**
+     * @return the number of spans written to the spill buffer.
+     */
+    public long getSpilledSpans() {
+        return spilledSpans.sum();
+    }
+
+    /**
+     * @return the number of spilled spans successfully exported again.
+     */
+    public long getReplayedSpans() {
+        return replayedSpans.sum();
+    }
+
+    /**
+     * @return the number of spans dropped because the spill buffer was full or could not be read.
+     */
+    public long getDroppedSpans() {
+        return droppedSpans.sum();
+    }
+
+    /**
+     * @return the number of spans waiting in the spill buffer.
+     */
+    public long getPendingSpans() {
+        return buffer.size();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                ReadableSpan span = overflow.poll(pollTimeout(), TimeUnit.NANOSECONDS);
+                if (span != null) {
+                    List<SpanData> spans = new ArrayList<>();
+                    spans.add(span.toSpanData());
+                    spill(spans);
+                    drainOverflow();
+                }
+
+                if (!buffer.isEmpty() && System.nanoTime() >= nextReplayTime && !replay()) {
+                    nextReplayTime = System.nanoTime() + replayIntervalNanos;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("An error occurs while replaying the spilled spans", e);
+                nextReplayTime = System.nanoTime() + replayIntervalNanos;
+            }
+        }
+    }
+
+    private long pollTimeout() {
+        if (buffer.isEmpty()) {
+            return replayIntervalNanos;
+        }
+        return Math.max(0, nextReplayTime - System.nanoTime());
+    }
+
+    private void drainOverflow() {
+        List<SpanData> spans = new ArrayList<>();
+        ReadableSpan span;
+        while ((span = overflow.poll()) != null) {
+            spans.add(span.toSpanData());
+        }
+        if (!spans.isEmpty()) {
+            spill(spans);
+        }
+    }
+
+    /**
+     * Export the oldest spilled spans. They are only removed from the buffer once the collector accepted them.
+     */
+    private boolean replay() {
+        List<SpanData> spans = new ArrayList<>();
+        ResourceDecoder resources = new ResourceDecoder();
+        int records = buffer.peek(
+            replayBatchSize,
+            (metadata, record) -> {
+                try {
+                    spans.add(SpanDataCodec.decode(record, resources.decode(metadata)));
+                } catch (IOException | RuntimeException e) {
+                    log.debug("Unable to read a spilled span, dropping it", e);
+                    droppedSpans.increment();
+                }
+            }
+        );
+        if (records == 0) {
+            return true;
+        }
+
+        if (!spans.isEmpty()) {
+            CompletableResultCode result = exportAndWait(spans);
+            if (!result.isSuccess()) {
+                log.debug("Unable to replay {} spilled spans, retrying later", spans.size());
+                return false;
+            }
+        }
+
+        buffer.commit(records);
+        replayedSpans.add(spans.size());
+        return true;
+    }
+
+    private void spill(Collection<SpanData> spans) {
+        int dropped = 0;
+        for (SpanData span : spans) {
+            try {
+                if (buffer.append(encodeResource(span.getResource()), SpanDataCodec.encode(span))) {
+                    spilledSpans.increment();
+                } else {
+                    dropped++;
+                }
+            } catch (IOException | RuntimeException e) {
+                log.debug("Unable to spill a span, dropping it", e);
+                dropped++;
+            }
+        }
+
+        if (dropped > 0) {
+            droppedSpans.add(dropped);
+            log.debug("Spill buffer is full or closed, {} spans dropped", dropped);
+        }
+    }
+
+    /**
+     * The spans of an exporter almost always share the same resource, so it is only encoded again when it changes, and
+     * the spill buffer then stores it once per segment.
+     */
+    private byte[] encodeResource(Resource resource) throws IOException {
+        EncodedResource encoded = lastResource;
+        if (encoded == null || encoded.resource != resource) {
+            encoded = new EncodedResource(resource, SpanDataCodec.encodeResource(resource));
+            lastResource = encoded;
+        }
+        return encoded.bytes;
+    }
+
+    private static final class EncodedResource {
+
+        private final Resource resource;
+        private final byte[] bytes;
+
+        private EncodedResource(Resource resource, byte[] bytes) {
+            this.resource = resource;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Decodes the resource of a segment once, the spill buffer giving the same metadata array for all its records.
+     */
+    private static final class ResourceDecoder {
+
+        private byte[] metadata;
+        private Resource resource;
+
+        private Resource decode(byte[] metadata) throws IOException {
+            if (this.metadata != metadata) {
+                this.resource = SpanDataCodec.decodeResource(metadata);
+                this.metadata = metadata;
+            }
+            return resource;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.gravitee.tracer.jaeger.configuration.JaegerTracerConfiguration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class AttributeFilterTest {
+
+    @Test
+    void should_extract_every_tag_by_default() {
+        var filter = AttributeFilter.from(JaegerTracerConfiguration.builder().build());
+
+        assertThat(filter.hasSamplingAttributes()).isFalse();
+        assertThat(filter.isSamplingAttribute("http.url")).isFalse();
+        assertThat(filter.isExtracted("http.url")).isTrue();
+    }
+
+    @Test
+    void should_only_extract_included_tags() {
+        var filter = AttributeFilter.from(JaegerTracerConfiguration.builder().includedAttributes(List.of("http.method")).build());
+
+        assertThat(filter.isExtracted("http.method")).isTrue();
+        assertThat(filter.isExtracted("http.url")).isFalse();
+    }
+
+    @Test
+    void should_not_extract_excluded_tags() {
+        var filter = AttributeFilter.from(JaegerTracerConfiguration.builder().excludedAttributes(List.of("http.url")).build());
+
+        assertThat(filter.isExtracted("http.method")).isTrue();
+        assertThat(filter.isExtracted("http.url")).isFalse();
+    }
+
+    @Test
+    void should_identify_sampling_attributes() {
+        var filter = AttributeFilter.from(JaegerTracerConfiguration.builder().samplingAttributes(List.of("http.method")).build());
+
+        assertThat(filter.hasSamplingAttributes()).isTrue();
+        assertThat(filter.isSamplingAttribute("http.method")).isTrue();
+        assertThat(filter.isSamplingAttribute("http.url")).isFalse();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.vertx.core.MultiMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class HeadersPropagatorGetterTest {
+
+    private static final String[] FIELDS = { "traceparent", "tracestate" };
+
+    private final HeadersPropagatorGetter getter = new HeadersPropagatorGetter();
+
+    @Test
+    void should_get_indexed_header_ignoring_case() {
+        var headers = IndexedHeaders.of(List.of(Map.entry("Host", "localhost"), Map.entry("TraceParent", "value")), FIELDS);
+
+        assertThat(headers).isInstanceOf(IndexedHeaders.class);
+        assertThat(getter.get(headers, "traceparent")).isEqualTo("value");
+        assertThat(getter.get(headers, "tracestate")).isNull();
+    }
+
+    @Test
+    void should_get_first_value_of_a_repeated_header() {
+        var headers = IndexedHeaders.of(List.of(Map.entry("traceparent", "first"), Map.entry("traceparent", "second")), FIELDS);
+
+        assertThat(getter.get(headers, "traceparent")).isEqualTo("first");
+    }
+
+    @Test
+    void should_collect_header_names_once() {
+        var headers = IndexedHeaders.of(List.of(Map.entry("traceparent", "value"), Map.entry("Host", "localhost")), FIELDS);
+
+        assertThat(getter.get(headers, "traceparent")).isEqualTo("value");
+        assertThat(getter.keys(headers)).containsExactlyInAnyOrder("traceparent", "Host");
+        assertThat(getter.keys(headers)).isSameAs(getter.keys(headers));
+    }
+
+    @Test
+    void should_read_the_headers_once_whatever_the_first_lookup() {
+        var entries = List.of(Map.entry("X-B3-Flags", "1"), Map.entry("uberctx-user", "alice"), Map.entry("traceparent", "value"));
+        var passes = new AtomicInteger();
+        Iterable<Map.Entry<String, String>> counted = () -> {
+            passes.incrementAndGet();
+            return entries.iterator();
+        };
+        var headers = IndexedHeaders.of(counted, FIELDS);
+
+        assertThat(getter.get(headers, "x-b3-flags")).isEqualTo("1");
+        assertThat(getter.keys(headers)).contains("uberctx-user");
+        assertThat(getter.get(headers, "uberctx-user")).isEqualTo("alice");
+        assertThat(getter.get(headers, "traceparent")).isEqualTo("value");
+        assertThat(getter.get(headers, "missing")).isNull();
+        assertThat(passes.get()).isEqualTo(1);
+    }
+
+    @Test
+    void should_get_header_not_indexed() {
+        var headers = IndexedHeaders.of(List.of(Map.entry("X-Request-Id", "id")), FIELDS);
+
+        assertThat(getter.get(headers, "x-request-id")).isEqualTo("id");
+        assertThat(getter.keys(headers)).containsExactly("X-Request-Id");
+    }
+
+    @Test
+    void should_read_vertx_multimap_directly() {
+        var headers = MultiMap.caseInsensitiveMultiMap().add("TraceParent", "value");
+
+        assertThat(IndexedHeaders.of(headers, FIELDS)).isSameAs(headers);
+        assertThat(getter.get(headers, "traceparent")).isEqualTo("value");
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.EventData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class JaegerSpanTest {
+
+    private final List<SpanData> ended = new ArrayList<>();
+
+    @Test
+    void should_add_buffered_events_when_span_ends() {
+        var span = span(Sampler.alwaysOn(), 8);
+
+        span.addEvent("request.received").addEvent("policy.done", "duration", 12L).addEvent("cache", "hit", true);
+        span.addEvent("backend.ratio", "ratio", 0.25);
+        span.end();
+
+        List<EventData> events = ended.get(0).getEvents();
+        assertThat(names(events)).containsExactly("request.received", "policy.done", "cache", "backend.ratio");
+        assertThat(events.get(1).getAttributes().get(AttributeKey.longKey("duration"))).isEqualTo(12L);
+        assertThat(events.get(2).getAttributes().get(AttributeKey.booleanKey("hit"))).isTrue();
+        assertThat(events.get(3).getAttributes().get(AttributeKey.doubleKey("ratio"))).isEqualTo(0.25);
+        assertThat(events.get(0).getEpochNanos()).isLessThanOrEqualTo(events.get(3).getEpochNanos());
+        assertThat(events.get(0).getEpochNanos()).isGreaterThanOrEqualTo(ended.get(0).getStartEpochNanos());
+    }
+
+    @Test
+    void should_record_events_from_the_reserved_attributes() {
+        io.gravitee.tracing.api.Span span = span(Sampler.alwaysOn(), 8);
+
+        span.withAttribute("gravitee.event", "request.received").withAttribute("gravitee.event.retries", 2L);
+        span.withAttribute("gravitee.event.cache.hit", true).withAttribute("http.method", "GET");
+        span.end();
+
+        List<EventData> events = ended.get(0).getEvents();
+        assertThat(names(events)).containsExactly("request.received", "retries", "cache.hit");
+        assertThat(events.get(1).getAttributes().get(AttributeKey.longKey("value"))).isEqualTo(2L);
+        assertThat(events.get(2).getAttributes().get(AttributeKey.booleanKey("value"))).isTrue();
+        assertThat(ended.get(0).getAttributes().size()).isEqualTo(1);
+    }
+
+    @Test
+    void should_keep_most_recent_events_when_buffer_is_full() {
+        var span = span(Sampler.alwaysOn(), 3);
+
+        for (int i = 0; i < 5; i++) {
+            span.addEvent("event-" + i);
+        }
+        span.end();
+
+        assertThat(names(ended.get(0).getEvents())).containsExactly("event-2", "event-3", "event-4");
+        assertThat(ended.get(0).getAttributes().get(SpanEventBuffer.DROPPED_EVENTS)).isEqualTo(2L);
+    }
+
+    @Test
+    void should_not_buffer_events_of_span_not_recorded() {
+        var span = span(Sampler.alwaysOff(), 8);
+
+        span.addEvent("ignored");
+        span.end();
+
+        assertThat(ended).isEmpty();
+    }
+
+    private JaegerSpan span(Sampler sampler, int maxEvents) {
+        var tracer = SdkTracerProvider.builder().setSampler(sampler).addSpanProcessor(new CapturingSpanProcessor()).build().get("test");
+        var span = tracer.spanBuilder("GET").startSpan();
+        return new JaegerSpan(span, null, null, Integer.MAX_VALUE, maxEvents);
+    }
+
+    private static List<String> names(List<EventData> events) {
+        return events.stream().map(EventData::getName).collect(Collectors.toList());
+    }
+
+    private class CapturingSpanProcessor implements SpanProcessor {
+
+        @Override
+        public void onStart(Context parentContext, ReadWriteSpan span) {}
+
+        @Override
+        public boolean isStartRequired() {
+            return false;
+        }
+
+        @Override
+        public void onEnd(ReadableSpan span) {
+            ended.add(span.toSpanData());
+        }
+
+        @Override
+        public boolean isEndRequired() {
+            return true;
+        }
+    }
+}
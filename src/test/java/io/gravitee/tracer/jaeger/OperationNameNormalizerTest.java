@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class OperationNameNormalizerTest {
+
+    @Test
+    void should_replace_identifiers_in_path() {
+        assertThat(OperationNameNormalizer.template("GET /users/42/orders")).isEqualTo("GET /users/{id}/orders");
+        assertThat(OperationNameNormalizer.template("/users/3fa85f64-5717-4562-b3fc-2c963f66afa6")).isEqualTo("/users/{id}");
+        assertThat(OperationNameNormalizer.template("/objects/507f1f77bcf86cd799439011/")).isEqualTo("/objects/{id}/");
+        assertThat(OperationNameNormalizer.template("/tokens/eyJhbGciOiJIUzI1NiJ9abcdef12")).isEqualTo("/tokens/{id}");
+    }
+
+    @Test
+    void should_keep_routes_and_drop_query_string() {
+        assertThat(OperationNameNormalizer.template("GET")).isEqualTo("GET");
+        assertThat(OperationNameNormalizer.template("/api/v2/customers")).isEqualTo("/api/v2/customers");
+        assertThat(OperationNameNormalizer.template("/search?q=123")).isEqualTo("/search");
+    }
+
+    @Test
+    void should_collapse_names_beyond_the_cap() {
+        var normalizer = new OperationNameNormalizer(true, 2, 100, "other");
+
+        assertThat(normalizer.normalize("/a")).isEqualTo("/a");
+        assertThat(normalizer.normalize("/b")).isEqualTo("/b");
+        assertThat(normalizer.normalize("/c")).isEqualTo("other");
+        assertThat(normalizer.normalize("/a/1")).isEqualTo("other");
+        assertThat(normalizer.normalize("/a")).isEqualTo("/a");
+    }
+
+    @Test
+    void should_serve_repeated_names_from_cache() {
+        var normalizer = new OperationNameNormalizer(true, 100, 4, "other");
+
+        String first = normalizer.normalize("/users/1");
+        assertThat(normalizer.normalize("/users/1")).isSameAs(first);
+
+        for (int i = 2; i < 10; i++) {
+            assertThat(normalizer.normalize("/users/" + i)).isEqualTo("/users/{id}");
+        }
+    }
+
+    @Test
+    void should_leave_names_untouched_when_disabled() {
+        var normalizer = new OperationNameNormalizer(false, 1, 100, "other");
+
+        assertThat(normalizer.normalize("/users/1")).isEqualTo("/users/1");
+        assertThat(normalizer.normalize("/users/2")).isEqualTo("/users/2");
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.gravitee.tracer.jaeger.VertxContextStorageProvider.VertxContextStorage;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.impl.ContextInternal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class TracingCorrelationTest {
+
+    private static final SpanContext SPAN_CONTEXT = SpanContext.create(
+        "4bf92f3577b34da6a3ce929d0e0e4736",
+        "00f067aa0ba902b7",
+        TraceFlags.getSampled(),
+        TraceState.getDefault()
+    );
+
+    private final Vertx vertx = Vertx.vertx();
+
+    @AfterEach
+    void tearDown() {
+        VertxContextStorage.INSTANCE.clear(null);
+        vertx.close();
+    }
+
+    @Test
+    void should_give_ids_of_span_active_in_vertx_context() {
+        var vertxContext = ((ContextInternal) vertx.getOrCreateContext()).duplicate();
+        VertxContextStorage.INSTANCE.swap(vertxContext, Context.root().with(Span.wrap(SPAN_CONTEXT)));
+
+        assertThat(TracingCorrelation.spanContext(vertxContext)).isSameAs(SPAN_CONTEXT);
+        assertThat(TracingCorrelation.spanContext(((ContextInternal) vertxContext).duplicate()).isValid()).isFalse();
+    }
+
+    @Test
+    void should_give_same_id_instances_on_each_call() {
+        VertxContextStorage.INSTANCE.swap(null, Context.root().with(Span.wrap(SPAN_CONTEXT)));
+
+        assertThat(TracingCorrelation.traceId()).isEqualTo("4bf92f3577b34da6a3ce929d0e0e4736").isSameAs(TracingCorrelation.traceId());
+        assertThat(TracingCorrelation.spanId()).isEqualTo("00f067aa0ba902b7").isSameAs(TracingCorrelation.spanId());
+    }
+
+    @Test
+    void should_give_no_id_without_active_span() {
+        assertThat(TracingCorrelation.traceId()).isNull();
+        assertThat(TracingCorrelation.spanId()).isNull();
+
+        VertxContextStorage.INSTANCE.swap(null, Context.root());
+        assertThat(TracingCorrelation.traceId()).isNull();
+    }
+}
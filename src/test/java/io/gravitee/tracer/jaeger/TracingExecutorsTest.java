@@ -0,0 +1,67 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.gravitee.tracer.jaeger.VertxContextStorageProvider.VertxContextStorage;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.ContextKey;
+import io.opentelemetry.context.Scope;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class TracingExecutorsTest {
+
+    private static final ContextKey<String> KEY = ContextKey.named("test");
+
+    private final ExecutorService executor = TracingExecutors.wrap(Executors.newSingleThreadExecutor());
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void should_propagate_context_to_submitted_task() throws Exception {
+        var context = Context.root().with(KEY, "submitter");
+
+        Future<Context> future;
+        try (Scope ignored = VertxContextStorage.INSTANCE.attach(null, context)) {
+            future = executor.submit(() -> VertxContextStorage.INSTANCE.current());
+        }
+
+        assertThat(future.get(5, TimeUnit.SECONDS)).isSameAs(context);
+    }
+
+    @Test
+    void should_restore_worker_context_after_task() throws Exception {
+        try (Scope ignored = VertxContextStorage.INSTANCE.attach(null, Context.root().with(KEY, "submitter"))) {
+            executor.submit(() -> {}).get(5, TimeUnit.SECONDS);
+        }
+
+        assertThat(executor.submit(() -> VertxContextStorage.INSTANCE.current()).get(5, TimeUnit.SECONDS)).isNull();
+    }
+
+    @Test
+    void should_not_wrap_twice() {
+        assertThat(TracingExecutors.wrap(executor)).isSameAs(executor);
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.gravitee.tracer.jaeger.configuration.TracingRuleConfiguration;
+import io.vertx.core.spi.tracing.TagExtractor;
+import io.vertx.core.tracing.TracingPolicy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class TracingRulesTest {
+
+    private static final TagExtractor<Map<String, String>> TAGS = new TagExtractor<>() {
+        @Override
+        public int len(Map<String, String> tags) {
+            return tags.size();
+        }
+
+        @Override
+        public String name(Map<String, String> tags, int index) {
+            return new ArrayList<>(tags.keySet()).get(index);
+        }
+
+        @Override
+        public String value(Map<String, String> tags, int index) {
+            return new ArrayList<>(tags.values()).get(index);
+        }
+    };
+
+    @Test
+    void should_match_nothing_without_rules() {
+        var rules = new TracingRules(List.of());
+
+        assertThat(rules.isEmpty()).isTrue();
+        assertThat(rules.match("GET", tags("http.url", "http://localhost/echo"), TAGS)).isNull();
+    }
+
+    @Test
+    void should_match_attribute_value() {
+        var rules = new TracingRules(
+            List.of(TracingRuleConfiguration.builder().attribute("api").value("chatty").policy("ignore").build())
+        );
+
+        assertThat(rules.match("GET", tags("api", "chatty"), TAGS).getPolicy()).isEqualTo(TracingPolicy.IGNORE);
+        assertThat(rules.match("GET", tags("api", "quiet"), TAGS)).isNull();
+        assertThat(rules.match("GET", tags("plan", "chatty"), TAGS)).isNull();
+    }
+
+    @Test
+    void should_match_longest_path_prefix() {
+        var rules = new TracingRules(
+            List.of(
+                TracingRuleConfiguration.builder().path("/api").samplingRate(0.5).build(),
+                TracingRuleConfiguration.builder().path("/api/orders/").policy("always").build()
+            )
+        );
+
+        assertThat(rules.match("GET", tags("http.url", "https://gateway:8082/api/orders/42?page=1"), TAGS).getIndex()).isEqualTo(1);
+        assertThat(rules.match("GET", tags("http.url", "https://gateway:8082/api/ordersX"), TAGS).getIndex()).isZero();
+        assertThat(rules.match("GET", tags("http.url", "/api"), TAGS).getIndex()).isZero();
+        assertThat(rules.match("GET", tags("http.url", "https://gateway:8082/apis"), TAGS)).isNull();
+        assertThat(rules.match("GET", tags("http.url", "https://gateway:8082"), TAGS)).isNull();
+    }
+
+    @Test
+    void should_apply_first_configured_rule_across_kinds() {
+        var rules = new TracingRules(
+            List.of(
+                TracingRuleConfiguration.builder().operation("POST").policy("propagate").build(),
+                TracingRuleConfiguration.builder().attribute("plan").value("gold").policy("always").build()
+            )
+        );
+
+        assertThat(rules.match("POST", tags("plan", "gold"), TAGS).getPolicy()).isEqualTo(TracingPolicy.PROPAGATE);
+        assertThat(rules.match("GET", tags("plan", "gold"), TAGS).getPolicy()).isEqualTo(TracingPolicy.ALWAYS);
+    }
+
+    @Test
+    void should_match_paths_among_many_siblings() {
+        List<TracingRuleConfiguration> configurations = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            configurations.add(TracingRuleConfiguration.builder().path("/api-" + i + "/v1").build());
+        }
+        var rules = new TracingRules(configurations);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(rules.match("GET", tags("http.url", "http://gateway/api-" + i + "/v1/orders"), TAGS).getIndex()).isEqualTo(i);
+        }
+        assertThat(rules.match("GET", tags("http.url", "http://gateway/api-1/v1#top"), TAGS).getIndex()).isEqualTo(1);
+        assertThat(rules.match("GET", tags("http.url", "http://gateway/api-1/v2"), TAGS)).isNull();
+        assertThat(rules.match("GET", tags("http.url", "http://gateway/api-20/v1"), TAGS)).isNull();
+    }
+
+    @Test
+    void should_only_override_ignore_with_a_tracing_policy() {
+        assertThat(rules(TracingRuleConfiguration.builder().operation("GET").samplingRate(0.1).build()).overridesIgnore()).isFalse();
+        assertThat(rules(TracingRuleConfiguration.builder().operation("GET").policy("ignore").build()).overridesIgnore()).isFalse();
+        assertThat(rules(TracingRuleConfiguration.builder().operation("GET").policy("always").build()).overridesIgnore()).isTrue();
+    }
+
+    @Test
+    void should_keep_default_policy_when_rule_only_samples() {
+        var rule = new TracingRules(List.of(TracingRuleConfiguration.builder().operation("GET").samplingRate(0.1).build()))
+            .match("GET", null, TAGS);
+
+        assertThat(rule.apply(TracingPolicy.PROPAGATE)).isEqualTo(TracingPolicy.PROPAGATE);
+        assertThat(rule.getSampler()).isNotNull();
+    }
+
+    @Test
+    void should_reject_invalid_rules() {
+        assertThatThrownBy(() -> new TracingRules(List.of(TracingRuleConfiguration.builder().policy("always").build())))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TracingRules(List.of(TracingRuleConfiguration.builder().attribute("api").build())))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TracingRules(List.of(TracingRuleConfiguration.builder().operation("GET").policy("sometimes").build())))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Map<String, String> tags(String name, String value) {
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("http.method", "GET");
+        tags.put(name, value);
+        return tags;
+    }
+
+    private static TracingRules rules(TracingRuleConfiguration configuration) {
+        return new TracingRules(List.of(configuration));
+    }
+}
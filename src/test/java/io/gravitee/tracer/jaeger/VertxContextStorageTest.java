@@ -0,0 +1,135 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.gravitee.tracer.jaeger.VertxContextStorageProvider.VertxContextStorage;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.ContextKey;
+import io.opentelemetry.context.Scope;
+import io.vertx.core.Vertx;
+import io.vertx.core.impl.ContextInternal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class VertxContextStorageTest {
+
+    private static final ContextKey<String> KEY = ContextKey.named("test");
+
+    private final Vertx vertx = Vertx.vertx();
+
+    @AfterEach
+    void tearDown() {
+        vertx.close();
+    }
+
+    @Test
+    void should_attach_and_restore_tracing_context() {
+        var vertxContext = duplicatedContext();
+        var parent = Context.root().with(KEY, "parent");
+        var child = parent.with(KEY, "child");
+
+        try (Scope ignored = VertxContextStorage.INSTANCE.attach(vertxContext, parent)) {
+            assertThat(VertxContextStorage.INSTANCE.current(vertxContext)).isSameAs(parent);
+
+            try (Scope ignored2 = VertxContextStorage.INSTANCE.attach(vertxContext, child)) {
+                assertThat(VertxContextStorage.INSTANCE.current(vertxContext)).isSameAs(child);
+            }
+
+            assertThat(VertxContextStorage.INSTANCE.current(vertxContext)).isSameAs(parent);
+        }
+
+        assertThat(VertxContextStorage.INSTANCE.current(vertxContext)).isNull();
+    }
+
+    @Test
+    void should_reuse_the_scope_of_a_duplicated_context() {
+        var vertxContext = duplicatedContext();
+        var parent = Context.root().with(KEY, "parent");
+        var child = parent.with(KEY, "child");
+
+        Scope first = VertxContextStorage.INSTANCE.attach(vertxContext, parent);
+        Scope second = VertxContextStorage.INSTANCE.attach(vertxContext, child);
+        assertThat(second).isSameAs(first);
+        assertThat(VertxContextStorage.INSTANCE.attach(vertxContext, child)).isSameAs(Scope.noop());
+
+        second.close();
+        assertThat(VertxContextStorage.INSTANCE.current(vertxContext)).isSameAs(parent);
+        first.close();
+        assertThat(VertxContextStorage.INSTANCE.current(vertxContext)).isNull();
+    }
+
+    @Test
+    void should_swap_and_restore_without_scope() {
+        var vertxContext = duplicatedContext();
+        var parent = Context.root().with(KEY, "parent");
+        var child = parent.with(KEY, "child");
+
+        assertThat(VertxContextStorage.INSTANCE.swap(vertxContext, parent)).isNull();
+        Context previous = VertxContextStorage.INSTANCE.swap(vertxContext, child);
+
+        assertThat(previous).isSameAs(parent);
+        assertThat(VertxContextStorage.INSTANCE.current(vertxContext)).isSameAs(child);
+
+        VertxContextStorage.INSTANCE.restore(vertxContext, previous);
+        assertThat(VertxContextStorage.INSTANCE.current(vertxContext)).isSameAs(parent);
+
+        VertxContextStorage.INSTANCE.clear(vertxContext);
+        assertThat(VertxContextStorage.INSTANCE.current(vertxContext)).isNull();
+    }
+
+    @Test
+    void should_isolate_duplicated_contexts() {
+        var first = duplicatedContext();
+        var second = first.duplicate();
+
+        VertxContextStorage.INSTANCE.swap(first, Context.root().with(KEY, "first"));
+
+        assertThat(VertxContextStorage.INSTANCE.current(second)).isNull();
+    }
+
+    @Test
+    void should_fall_back_to_thread_local_without_vertx_context() {
+        var parent = Context.root().with(KEY, "parent");
+
+        try (Scope ignored = VertxContextStorage.INSTANCE.attach(null, parent)) {
+            assertThat(VertxContextStorage.INSTANCE.current(null)).isSameAs(parent);
+            assertThat(Vertx.currentContext()).isNull();
+            assertThat(VertxContextStorage.INSTANCE.current()).isSameAs(parent);
+        }
+
+        assertThat(VertxContextStorage.INSTANCE.current(null)).isNull();
+    }
+
+    @Test
+    void should_not_store_the_tracing_context_in_a_shared_context() {
+        var shared = (ContextInternal) vertx.getOrCreateContext();
+        var parent = Context.root().with(KEY, "parent");
+
+        try (Scope ignored = VertxContextStorage.INSTANCE.attach(shared, parent)) {
+            assertThat(shared.localContextData()).isEmpty();
+            assertThat(VertxContextStorage.INSTANCE.current(shared)).isSameAs(parent);
+            assertThat(VertxContextStorage.INSTANCE.current(shared.duplicate())).isNull();
+        }
+
+        assertThat(VertxContextStorage.INSTANCE.current(shared)).isNull();
+    }
+
+        private ContextInternal duplicatedContext() {
+        return ((ContextInternal) vertx.getOrCreateContext()).duplicate();
+    }
+}
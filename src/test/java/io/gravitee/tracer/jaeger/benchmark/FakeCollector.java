@@ -0,0 +1,199 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.benchmark;
+
+import io.grpc.HandlerRegistry;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.stub.ServerCalls;
+import io.vertx.core.Vertx;
+import io.vertx.grpc.VertxServer;
+import io.vertx.grpc.VertxServerBuilder;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process collector accepting the spans exported with the Jaeger model protocol and with OTLP over gRPC, so that the
+ * export path can be loaded without a Jaeger instance. Requests are not decoded: the collector only walks the protobuf
+ * wire format far enough to count the spans, and answers with an empty response.
+ *
+ * @author GraviteeSource Team
+ */
+public class FakeCollector implements AutoCloseable {
+
+    static final String JAEGER_METHOD = "jaeger.api_v2.CollectorService/PostSpans";
+    static final String OTLP_METHOD = "opentelemetry.proto.collector.trace.v1.TraceService/Export";
+
+    /**
+     * Field numbers leading to the spans: {@code PostSpansRequest.batch.spans} and
+     * {@code ExportTraceServiceRequest.resource_spans.scope_spans.spans}.
+     */
+    private static final Map<String, int[]> SPAN_PATHS = Map.of(JAEGER_METHOD, new int[] { 1, 1 }, OTLP_METHOD, new int[] { 1, 2, 2 });
+
+    private static final byte[] EMPTY_RESPONSE = new byte[0];
+
+    private static final MethodDescriptor.Marshaller<byte[]> BYTES = new MethodDescriptor.Marshaller<>() {
+        @Override
+        public InputStream stream(byte[] value) {
+            return new ByteArrayInputStream(value);
+        }
+
+        @Override
+        public byte[] parse(InputStream stream) {
+            try {
+                return stream.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    };
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder spans = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final VertxServer server;
+
+    private FakeCollector(Vertx vertx) {
+        this.server =
+            VertxServerBuilder
+                .forAddress(vertx, "localhost", 0)
+                .fallbackHandlerRegistry(new CountingRegistry())
+                .maxInboundMessageSize(Integer.MAX_VALUE)
+                .build();
+    }
+
+    /**
+     * Starts a collector listening on a random local port.
+     */
+    public static FakeCollector start(Vertx vertx) throws IOException {
+        FakeCollector collector = new FakeCollector(vertx);
+        collector.server.start();
+        return collector;
+    }
+
+    public int getPort() {
+        return server.getPort();
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getSpans() {
+        return spans.sum();
+    }
+
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        server.shutdown();
+        server.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private void received(int[] spanPath, byte[] request) {
+        requests.increment();
+        bytes.add(request.length);
+        spans.add(countFields(request, 0, request.length, spanPath, 0));
+    }
+
+    /**
+     * Counts the occurrences of the last field of the path, descending into the length-delimited fields along it.
+     */
+    static int countFields(byte[] message, int from, int to, int[] path, int depth) {
+        int count = 0;
+        int[] position = { from };
+        while (position[0] < to) {
+            long tag = readVarint(message, position);
+            int wireType = (int) (tag & 0x7);
+            switch (wireType) {
+                case 0:
+                    readVarint(message, position);
+                    break;
+                case 1:
+                    position[0] += 8;
+                    break;
+                case 2:
+                    int length = (int) readVarint(message, position);
+                    if ((tag >>> 3) == path[depth]) {
+                        count += depth == path.length - 1 ? 1 : countFields(message, position[0], position[0] + length, path, depth + 1);
+                    }
+                    position[0] += length;
+                    break;
+                case 5:
+                    position[0] += 4;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported protobuf wire type " + wireType);
+            }
+        }
+        return count;
+    }
+
+    private static long readVarint(byte[] message, int[] position) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = message[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed protobuf varint");
+    }
+
+    /**
+     * Serves the collector methods of both protocols, without the generated stubs.
+     */
+    private class CountingRegistry extends HandlerRegistry {
+
+        private final Map<String, ServerMethodDefinition<byte[], byte[]>> methods = Map.of(
+            JAEGER_METHOD,
+            method(JAEGER_METHOD),
+            OTLP_METHOD,
+            method(OTLP_METHOD)
+        );
+
+        @Override
+        public ServerMethodDefinition<?, ?> lookupMethod(String methodName, String authority) {
+            return methods.get(methodName);
+        }
+
+        private ServerMethodDefinition<byte[], byte[]> method(String name) {
+            int[] spanPath = SPAN_PATHS.get(name);
+            MethodDescriptor<byte[], byte[]> descriptor = MethodDescriptor
+                .<byte[], byte[]>newBuilder(BYTES, BYTES)
+                .setType(MethodDescriptor.MethodType.UNARY)
+                .setFullMethodName(name)
+                .build();
+            return ServerMethodDefinition.create(
+                descriptor,
+                ServerCalls.asyncUnaryCall((request, observer) -> {
+                    received(spanPath, request);
+                    observer.onNext(EMPTY_RESPONSE);
+                    observer.onCompleted();
+                })
+            );
+        }
+    }
+}
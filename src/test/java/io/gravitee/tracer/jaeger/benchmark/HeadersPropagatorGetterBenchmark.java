@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.benchmark;
+
+import io.gravitee.tracer.jaeger.HeadersPropagatorGetter;
+import io.gravitee.tracer.jaeger.IndexedHeaders;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import io.vertx.core.MultiMap;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the W3C trace context extraction cost when the headers are scanned for each key, indexed once, or read from
+ * a Vert.x {@link MultiMap}.
+ *
+ * @author GraviteeSource Team
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeadersPropagatorGetterBenchmark {
+
+    private static final HeadersPropagatorGetter GETTER = new HeadersPropagatorGetter();
+    private static final TextMapPropagator PROPAGATOR = W3CTraceContextPropagator.getInstance();
+    private static final String[] FIELDS = PROPAGATOR.fields().toArray(new String[0]);
+
+    @Param({ "5", "40" })
+    public int headerCount;
+
+    private List<Map.Entry<String, String>> headers;
+    private MultiMap multiMap;
+
+    @Setup
+    public void setUp() {
+        headers = new ArrayList<>(headerCount);
+        multiMap = MultiMap.caseInsensitiveMultiMap();
+        for (int i = 0; i < headerCount - 1; i++) {
+            add("X-Custom-Header-" + i, "value-" + i);
+        }
+        // worst case for a scan: the trace context is the last header
+        add("Traceparent", "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01");
+    }
+
+    private void add(String name, String value) {
+        headers.add(new AbstractMap.SimpleImmutableEntry<>(name, value));
+        multiMap.add(name, value);
+    }
+
+    @Benchmark
+    public Context scan() {
+        return PROPAGATOR.extract(Context.root(), headers, GETTER);
+    }
+
+    @Benchmark
+    public Context indexed() {
+        return PROPAGATOR.extract(Context.root(), IndexedHeaders.of(headers, FIELDS), GETTER);
+    }
+
+    @Benchmark
+    public Context multiMap() {
+        return PROPAGATOR.extract(Context.root(), multiMap, GETTER);
+    }
+}
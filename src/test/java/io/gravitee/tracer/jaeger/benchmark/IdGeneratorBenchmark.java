@@ -0,0 +1,72 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.benchmark;
+
+import io.gravitee.tracer.jaeger.id.FastIdGenerator;
+import io.gravitee.tracer.jaeger.id.IdGeneratorType;
+import io.opentelemetry.sdk.trace.IdGenerator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the cost of the trace and span id generators, the SDK one (random) against the per-thread ones, from all the
+ * cores at once.
+ *
+ * JMH threads are not Netty threads, so {@link io.netty.util.concurrent.FastThreadLocal} takes its slower path here: the
+ * per-thread generators are faster still on the Vert.x event loops.
+ *
+ * @author GraviteeSource Team
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(Threads.MAX)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+    @Param({ "random", "fast", "time" })
+    public String generator;
+
+    private IdGenerator idGenerator;
+
+    @Setup
+    public void setUp() {
+        idGenerator = FastIdGenerator.of(IdGeneratorType.fromValue(generator));
+    }
+
+    @Benchmark
+    public String spanId() {
+        return idGenerator.generateSpanId();
+    }
+
+    @Benchmark
+    public String traceId() {
+        return idGenerator.generateTraceId();
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.benchmark;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.gravitee.node.api.Node;
+import io.gravitee.tracer.jaeger.JaegerTracer;
+import io.gravitee.tracer.jaeger.configuration.JaegerTracerConfiguration;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Vertx;
+import io.vertx.core.impl.ContextInternal;
+import io.vertx.core.spi.tracing.SpanKind;
+import io.vertx.core.spi.tracing.TagExtractor;
+import io.vertx.core.tracing.TracingPolicy;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the per-call cost of the {@link JaegerTracer} callbacks invoked by Vert.x, against an exporter discarding
+ * every span. Run it with the gc profiler (as the benchmark profile does) to get the allocation rate.
+ *
+ * Ending a span needs a started one, so {@code sendResponse} and {@code receiveResponse} are measured as part of a
+ * server and a client round trip: their own cost is the difference with {@code receiveRequest} and
+ * {@code sendRequest}.
+ *
+ * @author GraviteeSource Team
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JaegerTracerBenchmark {
+
+    private static final String OPERATION = "GET";
+    private static final String SAMPLED_TRACE_PARENT = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+    private static final String UNSAMPLED_TRACE_PARENT = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-00";
+    private static final BiConsumer<String, String> DISCARDING_HEADERS = (name, value) -> {};
+
+    @Param({ "IGNORE", "PROPAGATE", "ALWAYS" })
+    public TracingPolicy policy;
+
+    @Param({ "5", "40" })
+    public int headerCount;
+
+    @Param({ "true", "false" })
+    public boolean sampled;
+
+    private Vertx vertx;
+    private JaegerTracer tracer;
+    private ContextInternal context;
+    private ContextInternal previousContext;
+    private FakeRequest request;
+    private FakeRequest response;
+    private Span serverSpan;
+
+    @Setup
+    public void setUp() throws Exception {
+        vertx = Vertx.vertx();
+
+        Node node = mock(Node.class);
+        when(node.application()).thenReturn("benchmark");
+
+        var configuration = JaegerTracerConfiguration.builder().samplerParam(sampled ? 1 : 0).build();
+        tracer =
+            new JaegerTracer(configuration, node, vertx) {
+                @Override
+                protected SpanExporter createSpanExporter() {
+                    return new NoopSpanExporter();
+                }
+            };
+        tracer.start();
+
+        request = FakeRequest.withHeaders(headerCount, sampled ? SAMPLED_TRACE_PARENT : UNSAMPLED_TRACE_PARENT);
+        response = FakeRequest.withHeaders(headerCount, null);
+
+        // the benchmark thread runs on a duplicated context, as a request handled by the gateway would
+        context = ((ContextInternal) vertx.getOrCreateContext()).duplicate();
+        previousContext = context.beginDispatch();
+
+        // client requests are sent on behalf of a server one
+        serverSpan = tracer.receiveRequest(context, SpanKind.RPC, policy, request, OPERATION, request.headers, FakeRequest.TAGS);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        context.endDispatch(previousContext);
+        tracer.stop();
+        vertx.close().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public Span receiveRequest() {
+        return tracer.receiveRequest(context, SpanKind.RPC, policy, request, OPERATION, request.headers, FakeRequest.TAGS);
+    }
+
+    @Benchmark
+    public Span serverRoundTrip() {
+        Span span = tracer.receiveRequest(context, SpanKind.RPC, policy, request, OPERATION, request.headers, FakeRequest.TAGS);
+        tracer.sendResponse(context, response, span, null, FakeRequest.TAGS);
+        return span;
+    }
+
+    @Benchmark
+    public Span sendRequest() {
+        return tracer.sendRequest(context, SpanKind.RPC, policy, request, OPERATION, DISCARDING_HEADERS, FakeRequest.TAGS);
+    }
+
+    @Benchmark
+    public Span clientRoundTrip() {
+        Span span = tracer.sendRequest(context, SpanKind.RPC, policy, request, OPERATION, DISCARDING_HEADERS, FakeRequest.TAGS);
+        tracer.receiveResponse(context, response, span, null, FakeRequest.TAGS);
+        return span;
+    }
+
+    @Benchmark
+    public io.gravitee.tracing.api.Span trace() {
+        io.gravitee.tracing.api.Span span = tracer.trace(OPERATION);
+        span.end();
+        return span;
+    }
+
+    /**
+     * Minimal request carrying headers and exposing a few tags, as Vert.x HTTP requests do.
+     */
+    static class FakeRequest {
+
+        private static final String[] TAG_NAMES = { "http.method", "http.url", "http.status_code", "peer.address", "span.kind" };
+
+        static final TagExtractor<FakeRequest> TAGS = new TagExtractor<>() {
+            @Override
+            public int len(FakeRequest request) {
+                return TAG_NAMES.length;
+            }
+
+            @Override
+            public String name(FakeRequest request, int index) {
+                return TAG_NAMES[index];
+            }
+
+            @Override
+            public String value(FakeRequest request, int index) {
+                return request.tagValues[index];
+            }
+        };
+
+        final MultiMap headers = MultiMap.caseInsensitiveMultiMap();
+        private final String[] tagValues = { "GET", "http://localhost:8082/echo/items/42", "200", "127.0.0.1:8082", "server" };
+
+        static FakeRequest withHeaders(int count, String traceParent) {
+            FakeRequest request = new FakeRequest();
+            if (traceParent != null) {
+                request.headers.add("traceparent", traceParent);
+            }
+            while (request.headers.size() < count) {
+                request.headers.add("X-Custom-Header-" + request.headers.size(), "value");
+            }
+            return request;
+        }
+    }
+}
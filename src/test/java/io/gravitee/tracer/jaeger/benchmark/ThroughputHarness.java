@@ -0,0 +1,249 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.benchmark;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.sun.management.OperatingSystemMXBean;
+import io.gravitee.node.api.Node;
+import io.gravitee.tracer.jaeger.JaegerTracer;
+import io.gravitee.tracer.jaeger.benchmark.JaegerTracerBenchmark.FakeRequest;
+import io.gravitee.tracer.jaeger.configuration.JaegerTracerConfiguration;
+import io.gravitee.tracer.jaeger.metrics.TracerMetrics;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.trace.Span;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.impl.ContextInternal;
+import io.vertx.core.spi.tracing.SpanKind;
+import io.vertx.core.tracing.TracingPolicy;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Value;
+
+/**
+ * Pushes server requests through a {@link JaegerTracer} running on a real Vert.x instance and exporting to an in-process
+ * {@link FakeCollector}, then reports the sustained throughput, the drop rate, the export latency and the CPU spent per
+ * span. Nothing but the JVM is needed, so it runs in CI or offline.
+ *
+ * Arguments, all optional: the number of requests, the number of concurrent drivers (one per event loop by default), the
+ * export protocol ({@code jaeger} or {@code otlp-grpc}) and the sampling probability. A tenth of the requests are sent
+ * first to warm the JVM up and are left out of the report.
+ *
+ * The collector shares the process, so the CPU per span includes the cost of receiving the spans: it is an upper bound
+ * of the tracer own cost.
+ *
+ * @author GraviteeSource Team
+ */
+public class ThroughputHarness {
+
+    private static final String OPERATION = "GET";
+    private static final String TRACE_PARENT = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+    private static final int HEADER_COUNT = 10;
+
+    /**
+     * Requests handled in a row by a driver before handing the event loop back, so that the exporter, which shares the
+     * event loops, keeps running.
+     */
+    private static final int REQUESTS_PER_TURN = 1_000;
+    private static final long DRAIN_TIMEOUT_MILLIS = 30_000;
+
+    private final Vertx vertx;
+    private final FakeCollector collector;
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final JaegerTracer tracer;
+    private final int concurrency;
+
+    ThroughputHarness(Vertx vertx, FakeCollector collector, JaegerTracerConfiguration configuration, int concurrency) {
+        this.vertx = vertx;
+        this.collector = collector;
+        this.concurrency = concurrency;
+
+        Node node = mock(Node.class);
+        when(node.application()).thenReturn("throughput");
+
+        this.tracer =
+            new JaegerTracer(configuration, node, vertx) {
+                @Override
+                protected TracerMetrics createMetrics() {
+                    return new TracerMetrics(registry);
+                }
+            };
+    }
+
+    public static void main(String[] args) throws Exception {
+        long requests = args.length > 0 ? Long.parseLong(args[0]) : 2_000_000;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : VertxOptions.DEFAULT_EVENT_LOOP_POOL_SIZE;
+        String protocol = args.length > 2 ? args[2] : "jaeger";
+        double samplingProbability = args.length > 3 ? Double.parseDouble(args[3]) : 1;
+
+        Vertx vertx = Vertx.vertx();
+        try (FakeCollector collector = FakeCollector.start(vertx)) {
+            var configuration = JaegerTracerConfiguration
+                .builder()
+                .protocol(protocol)
+                .host("localhost")
+                .port(collector.getPort())
+                .samplerParam(samplingProbability)
+                .build();
+
+            ThroughputHarness harness = new ThroughputHarness(vertx, collector, configuration, concurrency);
+            harness.tracer.start();
+            try {
+                harness.run(requests / 10);
+                Snapshot warm = harness.snapshot();
+                harness.run(requests);
+                Snapshot end = harness.snapshot();
+
+                System.out.printf(
+                    "%d requests, %d drivers, %s protocol, sampling probability %s%n",
+                    requests,
+                    concurrency,
+                    protocol,
+                    samplingProbability
+                );
+                end.minus(warm).print();
+            } finally {
+                harness.tracer.stop();
+            }
+        } finally {
+            vertx.close().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Sends the requests through the tracer, then waits for the spans to reach the collector.
+     */
+    void run(long requests) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(concurrency);
+        AtomicLong remaining = new AtomicLong(requests);
+        for (int i = 0; i < concurrency; i++) {
+            Context eventLoop = vertx.getOrCreateContext();
+            eventLoop.runOnContext(v -> drive((ContextInternal) eventLoop, remaining, done));
+        }
+        done.await();
+
+        tracer.forceFlush().join(DRAIN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        // the spans neither dropped nor received yet are still on their way to the collector
+        long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MILLIS;
+        while (collector.getSpans() < sampledSpans() - droppedSpans() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void drive(ContextInternal eventLoop, AtomicLong remaining, CountDownLatch done) {
+        FakeRequest request = FakeRequest.withHeaders(HEADER_COUNT, TRACE_PARENT);
+        FakeRequest response = FakeRequest.withHeaders(HEADER_COUNT, null);
+        for (int i = 0; i < REQUESTS_PER_TURN; i++) {
+            if (remaining.getAndDecrement() <= 0) {
+                done.countDown();
+                return;
+            }
+            // every request is handled on its own duplicated context, as the gateway does
+            ContextInternal context = eventLoop.duplicate();
+            ContextInternal previous = context.beginDispatch();
+            try {
+                Span span = tracer.receiveRequest(
+                    context,
+                    SpanKind.RPC,
+                    TracingPolicy.ALWAYS,
+                    request,
+                    OPERATION,
+                    request.headers,
+                    FakeRequest.TAGS
+                );
+                tracer.sendResponse(context, response, span, null, FakeRequest.TAGS);
+            } finally {
+                context.endDispatch(previous);
+            }
+        }
+        eventLoop.runOnContext(v -> drive(eventLoop, remaining, done));
+    }
+
+    private long sampledSpans() {
+        return (long) registry.get("tracer.spans.sampled").counter().count();
+    }
+
+    private long droppedSpans() {
+        return (long) registry.find("tracer.spans.dropped").functionCounters().stream().mapToDouble(FunctionCounter::count).sum();
+    }
+
+    private Snapshot snapshot() {
+        Timer exports = registry.get("tracer.export.duration").timer();
+        return new Snapshot(
+            System.nanoTime(),
+            ((OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime(),
+            (long) registry.get("tracer.spans.started").counter().count(),
+            droppedSpans(),
+            collector.getSpans(),
+            collector.getBytes(),
+            exports.count(),
+            (long) exports.totalTime(TimeUnit.NANOSECONDS)
+        );
+    }
+
+    @Value
+    private static class Snapshot {
+
+        long wallNanos;
+        long cpuNanos;
+        long startedSpans;
+        long droppedSpans;
+        long receivedSpans;
+        long receivedBytes;
+        long exports;
+        long exportNanos;
+
+        Snapshot minus(Snapshot other) {
+            return new Snapshot(
+                wallNanos - other.wallNanos,
+                cpuNanos - other.cpuNanos,
+                startedSpans - other.startedSpans,
+                droppedSpans - other.droppedSpans,
+                receivedSpans - other.receivedSpans,
+                receivedBytes - other.receivedBytes,
+                exports - other.exports,
+                exportNanos - other.exportNanos
+            );
+        }
+
+        void print() {
+            double seconds = wallNanos / 1e9;
+            System.out.printf("spans started        %,d%n", startedSpans);
+            System.out.printf("spans received       %,d (%,.0f spans/s)%n", receivedSpans, receivedSpans / seconds);
+            System.out.printf("spans dropped        %,d (%.2f %%)%n", droppedSpans, percent(droppedSpans, startedSpans));
+            System.out.printf("bytes received       %,d (%,.0f bytes/span)%n", receivedBytes, ratio(receivedBytes, receivedSpans));
+            System.out.printf("export calls         %,d (mean latency %.2f ms)%n", exports, ratio(exportNanos, exports) / 1e6);
+            System.out.printf("cpu per span         %,.0f ns%n", ratio(cpuNanos, startedSpans));
+            System.out.printf("elapsed              %.2f s%n", seconds);
+        }
+
+        private static double ratio(long value, long total) {
+            return total == 0 ? 0 : (double) value / total;
+        }
+
+        private static double percent(long value, long total) {
+            return ratio(value, total) * 100;
+        }
+    }
+}
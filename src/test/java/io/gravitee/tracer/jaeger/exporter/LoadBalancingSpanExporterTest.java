@@ -0,0 +1,161 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.exporter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class LoadBalancingSpanExporterTest {
+
+    private static final CollectorEndpoint COLLECTOR_1 = new CollectorEndpoint("collector-1", 14250);
+    private static final CollectorEndpoint COLLECTOR_2 = new CollectorEndpoint("collector-2", 14250);
+    private static final CollectorEndpoint COLLECTOR_3 = new CollectorEndpoint("collector-3", 14250);
+
+    private final Map<CollectorEndpoint, FakeExporter> exporters = new ConcurrentHashMap<>();
+
+    @Test
+    void should_spread_exports_in_round_robin() {
+        var exporter = loadBalancer(LoadBalancingStrategy.ROUND_ROBIN);
+
+        for (int i = 0; i < 9; i++) {
+            assertThat(exporter.export(List.of()).isSuccess()).isTrue();
+        }
+
+        assertThat(exports(COLLECTOR_1)).isEqualTo(3);
+        assertThat(exports(COLLECTOR_2)).isEqualTo(3);
+        assertThat(exports(COLLECTOR_3)).isEqualTo(3);
+    }
+
+    @Test
+    void should_retry_on_another_collector_and_eject_the_failing_one() {
+        var exporter = loadBalancer(LoadBalancingStrategy.ROUND_ROBIN);
+        exporters.get(COLLECTOR_2).failing = true;
+
+        for (int i = 0; i < 9; i++) {
+            assertThat(exporter.export(List.of()).isSuccess()).isTrue();
+        }
+
+        assertThat(exporter.getHealthyEndpoints()).containsExactlyInAnyOrder(COLLECTOR_1, COLLECTOR_3);
+        assertThat(exports(COLLECTOR_2)).isEqualTo(2);
+        assertThat(exports(COLLECTOR_1) + exports(COLLECTOR_3)).isEqualTo(9);
+    }
+
+    @Test
+    void should_fail_when_every_collector_fails() {
+        var exporter = loadBalancer(LoadBalancingStrategy.LEAST_REQUESTS);
+        exporters.values().forEach(fake -> fake.failing = true);
+
+        assertThat(exporter.export(List.of()).isSuccess()).isFalse();
+        assertThat(exports(COLLECTOR_1)).isEqualTo(1);
+        assertThat(exports(COLLECTOR_2)).isEqualTo(1);
+        assertThat(exports(COLLECTOR_3)).isEqualTo(1);
+    }
+
+    @Test
+    void should_not_retry_an_abandoned_export() {
+        var exporter = loadBalancer(LoadBalancingStrategy.ROUND_ROBIN);
+        exporters.values().forEach(fake -> fake.pending = true);
+
+        CompletableResultCode result = exporter.export(List.of());
+        result.fail();
+        exporters.values().forEach(FakeExporter::fail);
+
+        assertThat(exports(COLLECTOR_1) + exports(COLLECTOR_2) + exports(COLLECTOR_3)).isEqualTo(1);
+    }
+
+    @Test
+    void should_not_retry_once_the_export_timeout_elapsed() throws Exception {
+        var exporter = loadBalancer(LoadBalancingStrategy.ROUND_ROBIN, 1);
+        exporters.values().forEach(fake -> fake.pending = true);
+
+        CompletableResultCode result = exporter.export(List.of());
+        Thread.sleep(5);
+        exporters.values().forEach(FakeExporter::fail);
+
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(exports(COLLECTOR_1) + exports(COLLECTOR_2) + exports(COLLECTOR_3)).isEqualTo(1);
+    }
+
+    @Test
+    void should_parse_endpoints() {
+        assertThat(CollectorEndpoint.parse("collector:4317", 14250)).isEqualTo(new CollectorEndpoint("collector", 4317));
+        assertThat(CollectorEndpoint.parse("collector", 14250)).isEqualTo(new CollectorEndpoint("collector", 14250));
+        assertThat(CollectorEndpoint.parse("[::1]:4317", 14250)).isEqualTo(new CollectorEndpoint("::1", 4317));
+    }
+
+    private LoadBalancingSpanExporter loadBalancer(LoadBalancingStrategy strategy) {
+        return loadBalancer(strategy, 30_000);
+    }
+
+    private LoadBalancingSpanExporter loadBalancer(LoadBalancingStrategy strategy, long exportTimeout) {
+        return new LoadBalancingSpanExporter(
+            () -> List.of(COLLECTOR_1, COLLECTOR_2, COLLECTOR_3),
+            0,
+            endpoint -> exporters.computeIfAbsent(endpoint, e -> new FakeExporter()),
+            strategy,
+            2,
+            60_000,
+            exportTimeout
+        );
+    }
+
+    private int exports(CollectorEndpoint endpoint) {
+        return exporters.get(endpoint).exports.get();
+    }
+
+    private static class FakeExporter implements SpanExporter {
+
+        private final AtomicInteger exports = new AtomicInteger();
+        private final List<CompletableResultCode> results = new CopyOnWriteArrayList<>();
+        private volatile boolean failing;
+        private volatile boolean pending;
+
+        @Override
+        public CompletableResultCode export(Collection<SpanData> spans) {
+            exports.incrementAndGet();
+            if (pending) {
+                CompletableResultCode result = new CompletableResultCode();
+                results.add(result);
+                return result;
+            }
+            return failing ? CompletableResultCode.ofFailure() : CompletableResultCode.ofSuccess();
+        }
+
+        private void fail() {
+            results.forEach(CompletableResultCode::fail);
+        }
+
+        @Override
+        public CompletableResultCode flush() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.exporter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class SwappableSpanExporterTest {
+
+    @Test
+    void should_export_to_new_delegate_after_swap() {
+        var previous = new PendingSpanExporter();
+        var next = new PendingSpanExporter();
+        var exporter = new SwappableSpanExporter(previous);
+
+        exporter.export(List.of());
+        exporter.swap(next);
+        exporter.export(List.of());
+
+        assertThat(previous.exports.get()).isEqualTo(1);
+        assertThat(next.exports.get()).isEqualTo(1);
+        assertThat(exporter.getDelegate()).isSameAs(next);
+    }
+
+    @Test
+    void should_shut_previous_delegate_down_once_in_flight_exports_complete() {
+        var previous = new PendingSpanExporter();
+        var exporter = new SwappableSpanExporter(previous);
+
+        exporter.export(List.of());
+        CompletableResultCode retired = exporter.swap(new PendingSpanExporter());
+
+        assertThat(previous.shutdowns.get()).isZero();
+        assertThat(retired.isDone()).isFalse();
+
+        previous.pending.succeed();
+
+        assertThat(previous.shutdowns.get()).isEqualTo(1);
+        assertThat(retired.isSuccess()).isTrue();
+    }
+
+    @Test
+    void should_shut_idle_delegate_down_on_swap() {
+        var previous = new PendingSpanExporter();
+        var exporter = new SwappableSpanExporter(previous);
+
+        exporter.swap(new PendingSpanExporter());
+
+        assertThat(previous.shutdowns.get()).isEqualTo(1);
+    }
+
+    private static class PendingSpanExporter implements SpanExporter {
+
+        private final CompletableResultCode pending = new CompletableResultCode();
+        private final AtomicInteger exports = new AtomicInteger();
+        private final AtomicInteger shutdowns = new AtomicInteger();
+
+        @Override
+        public CompletableResultCode export(Collection<SpanData> spans) {
+            exports.incrementAndGet();
+            return pending;
+        }
+
+        @Override
+        public CompletableResultCode flush() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            shutdowns.incrementAndGet();
+            return CompletableResultCode.ofSuccess();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.id;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.opentelemetry.api.trace.SpanId;
+import io.opentelemetry.api.trace.TraceId;
+import io.opentelemetry.sdk.trace.IdGenerator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class FastIdGeneratorTest {
+
+    @Test
+    void should_generate_valid_and_distinct_ids() {
+        var generator = FastIdGenerator.random();
+        Set<String> spanIds = new HashSet<>();
+        Set<String> traceIds = new HashSet<>();
+
+        for (int i = 0; i < 10_000; i++) {
+            String spanId = generator.generateSpanId();
+            String traceId = generator.generateTraceId();
+            assertThat(SpanId.isValid(spanId)).isTrue();
+            assertThat(TraceId.isValid(traceId)).isTrue();
+            spanIds.add(spanId);
+            traceIds.add(traceId);
+        }
+
+        assertThat(spanIds).hasSize(10_000);
+        assertThat(traceIds).hasSize(10_000);
+    }
+
+    @Test
+    void should_prefix_trace_ids_with_time() {
+        var generator = FastIdGenerator.timePrefixed();
+        long before = System.currentTimeMillis() / 1000;
+
+        String traceId = generator.generateTraceId();
+
+        long seconds = Long.parseLong(traceId.substring(0, 8), 16);
+        assertThat(seconds).isBetween(before, System.currentTimeMillis() / 1000);
+        assertThat(TraceId.isValid(traceId)).isTrue();
+        assertThat(generator.generateTraceId().substring(8)).isNotEqualTo(traceId.substring(8));
+    }
+
+    @Test
+    void should_not_repeat_ids_across_threads() throws InterruptedException {
+        var generator = FastIdGenerator.random();
+        Set<String> spanIds = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        for (int t = 0; t < 4; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    spanIds.add(generator.generateSpanId());
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(spanIds).hasSize(20_000);
+    }
+
+    @Test
+    void should_keep_sdk_generator_by_default() {
+        assertThat(FastIdGenerator.of(IdGeneratorType.fromValue("random"))).isSameAs(IdGenerator.random());
+        assertThat(FastIdGenerator.of(IdGeneratorType.fromValue("fast"))).isInstanceOf(FastIdGenerator.class);
+    }
+}
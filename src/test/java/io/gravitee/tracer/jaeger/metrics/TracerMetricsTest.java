@@ -0,0 +1,142 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.gravitee.tracer.jaeger.configuration.JaegerTracerConfiguration;
+import io.gravitee.tracer.jaeger.processor.AdaptiveBatchSpanProcessor;
+import io.gravitee.tracer.jaeger.processor.RedMetricsSpanProcessor;
+import io.gravitee.tracer.jaeger.sampler.RecordingSampler;
+import io.grpc.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class TracerMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final TracerMetrics metrics = new TracerMetrics(registry);
+
+    @Test
+    void should_count_started_and_sampled_spans() {
+        metrics.spanStarted(true);
+        metrics.spanStarted(false);
+
+        assertThat(registry.get("tracer.spans.started").counter().count()).isEqualTo(2.0);
+        assertThat(registry.get("tracer.spans.sampled").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void should_record_export_calls() {
+        new MeteredSpanExporter(new ResultSpanExporter(true), metrics).export(List.of());
+        new MeteredSpanExporter(new ResultSpanExporter(false), metrics).export(List.of());
+
+        assertThat(registry.get("tracer.exports").tag("result", "success").counter().count()).isEqualTo(1.0);
+        assertThat(registry.get("tracer.exports").tag("result", "failure").counter().count()).isEqualTo(1.0);
+        assertThat(registry.get("tracer.export.batch.size").summary().count()).isEqualTo(2L);
+        assertThat(registry.get("tracer.export.duration").timer().count()).isEqualTo(2L);
+    }
+
+    @Test
+    void should_count_grpc_failures_by_status() {
+        metrics.grpcFailure(Status.Code.UNAVAILABLE);
+        metrics.grpcFailure(Status.Code.UNAVAILABLE);
+        metrics.grpcFailure(Status.Code.DEADLINE_EXCEEDED);
+
+        assertThat(registry.get("tracer.export.grpc.failures").tag("status", "UNAVAILABLE").counter().count()).isEqualTo(2.0);
+        assertThat(registry.get("tracer.export.grpc.failures").tag("status", "DEADLINE_EXCEEDED").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void should_remove_its_meters_but_the_shutdown_ones_when_closed() {
+        var processor = new AdaptiveBatchSpanProcessor(new ResultSpanExporter(true), JaegerTracerConfiguration.builder().build());
+        metrics.bind(processor);
+        metrics.grpcFailure(Status.Code.UNAVAILABLE);
+        metrics.shutdown(TimeUnit.MILLISECONDS.toNanos(20), 4);
+
+        metrics.close();
+
+        // the shutdown meters stay, for the reporters to publish them once the tracer is stopped
+        assertThat(registry.getMeters()).hasSize(2);
+        assertThat(registry.get("tracer.shutdown.duration").timer().count()).isEqualTo(1);
+        assertThat(registry.get("tracer.spans.dropped").tag("reason", "shutdown").counter().count()).isEqualTo(4.0);
+        processor.shutdown().join(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void should_expose_batch_processor_counters() {
+        var processor = new AdaptiveBatchSpanProcessor(new ResultSpanExporter(false), JaegerTracerConfiguration.builder().build());
+        metrics.bind(processor);
+        var tracer = SdkTracerProvider.builder().addSpanProcessor(processor).build().get("test");
+
+        for (int i = 0; i < 3; i++) {
+            tracer.spanBuilder("span-" + i).startSpan().end();
+        }
+        processor.forceFlush().join(10, TimeUnit.SECONDS);
+
+        assertThat(registry.get("tracer.spans.queued").functionCounter().count()).isEqualTo(3.0);
+        assertThat(registry.get("tracer.spans.dropped").tag("reason", "export_failed").functionCounter().count()).isEqualTo(3.0);
+        assertThat(registry.get("tracer.spans.dropped").tag("reason", "queue_full").functionCounter().count()).isEqualTo(0.0);
+        assertThat(registry.get("tracer.queue.size").gauge().value()).isEqualTo(0.0);
+        processor.shutdown().join(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void should_publish_red_metrics() {
+        var processor = new RedMetricsSpanProcessor(JaegerTracerConfiguration.builder().build(), metrics);
+        var tracer = SdkTracerProvider.builder().setSampler(new RecordingSampler(Sampler.alwaysOff())).addSpanProcessor(processor).build();
+
+        tracer.get("test").spanBuilder("GET").setAttribute("error", true).startSpan().end();
+        tracer.get("test").spanBuilder("GET").startSpan().end();
+
+        assertThat(registry.get("tracer.red.duration").tags("operation", "GET", "kind", "internal", "error", "true").timer().count())
+            .isEqualTo(1L);
+        assertThat(registry.get("tracer.red.duration").tags("operation", "GET", "kind", "internal", "error", "false").timer().count())
+            .isEqualTo(1L);
+    }
+
+    private static class ResultSpanExporter implements SpanExporter {
+
+        private final boolean success;
+
+        private ResultSpanExporter(boolean success) {
+            this.success = success;
+        }
+
+        @Override
+        public CompletableResultCode export(Collection<SpanData> spans) {
+            return success ? CompletableResultCode.ofSuccess() : CompletableResultCode.ofFailure();
+        }
+
+        @Override
+        public CompletableResultCode flush() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.processor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.gravitee.tracer.jaeger.configuration.JaegerTracerConfiguration;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveBatchSpanProcessorTest {
+
+    @Test
+    void should_export_spans_on_flush() {
+        var exporter = new CollectingSpanExporter();
+        var processor = new AdaptiveBatchSpanProcessor(exporter, JaegerTracerConfiguration.builder().build());
+        var tracer = SdkTracerProvider.builder().addSpanProcessor(processor).build().get("test");
+
+        for (int i = 0; i < 10; i++) {
+            tracer.spanBuilder("span-" + i).startSpan().end();
+        }
+
+        assertThat(processor.forceFlush().join(10, TimeUnit.SECONDS).isSuccess()).isTrue();
+        assertThat(exporter.spans()).hasSize(10);
+        processor.shutdown().join(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void should_split_exports_according_to_max_batch_size() {
+        var exporter = new CollectingSpanExporter();
+        var configuration = JaegerTracerConfiguration.builder().batchMaxExportBatchSize(10).batchScheduleDelay(60_000).build();
+        var processor = new AdaptiveBatchSpanProcessor(exporter, configuration);
+        var tracer = SdkTracerProvider.builder().addSpanProcessor(processor).build().get("test");
+
+        for (int i = 0; i < 35; i++) {
+            tracer.spanBuilder("span-" + i).startSpan().end();
+        }
+
+        processor.forceFlush().join(10, TimeUnit.SECONDS);
+        assertThat(exporter.spans()).hasSize(35);
+        assertThat(exporter.batches).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(10));
+        processor.shutdown().join(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void should_start_with_configured_batch_settings_in_adaptive_mode() {
+        var configuration = JaegerTracerConfiguration
+            .builder()
+            .batchAdaptiveEnabled(true)
+            .batchMaxExportBatchSize(256)
+            .batchScheduleDelay(2000)
+            .build();
+        var processor = new AdaptiveBatchSpanProcessor(new CollectingSpanExporter(), configuration);
+
+        assertThat(processor.getCurrentBatchSize()).isEqualTo(256);
+        assertThat(processor.getCurrentScheduleDelay()).isEqualTo(2000);
+        processor.shutdown().join(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void should_drop_spans_exceeding_queue_memory() {
+        var exporter = new CollectingSpanExporter();
+        var configuration = JaegerTracerConfiguration.builder().batchMaxQueueMemory(4096).batchScheduleDelay(60_000).build();
+        var processor = new AdaptiveBatchSpanProcessor(exporter, configuration);
+        var tracer = SdkTracerProvider.builder().addSpanProcessor(processor).build().get("test");
+
+        for (int i = 0; i < 10; i++) {
+            tracer.spanBuilder("span-" + i).setAttribute("http.url", "x".repeat(1000)).startSpan().end();
+        }
+
+        assertThat(processor.getDroppedSpans()).isGreaterThan(0L);
+        assertThat(processor.getQueueMemory()).isLessThanOrEqualTo(4096L);
+
+        processor.forceFlush().join(10, TimeUnit.SECONDS);
+        assertThat(exporter.spans().size() + processor.getDroppedSpans()).isEqualTo(10L);
+        assertThat(processor.getQueueMemory()).isZero();
+        processor.shutdown().join(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void should_export_pending_spans_and_reject_later_ones_on_shutdown() {
+        var exporter = new CollectingSpanExporter();
+        var configuration = JaegerTracerConfiguration.builder().batchScheduleDelay(60_000).build();
+        var processor = new AdaptiveBatchSpanProcessor(exporter, configuration);
+        var tracer = SdkTracerProvider.builder().addSpanProcessor(processor).build().get("test");
+
+        tracer.spanBuilder("pending").startSpan().end();
+        var late = tracer.spanBuilder("late").startSpan();
+        processor.shutdown().join(10, TimeUnit.SECONDS);
+        late.end();
+
+        assertThat(exporter.spans()).hasSize(1);
+        assertThat(processor.getRejectedSpans()).isEqualTo(1L);
+    }
+
+    @Test
+    void should_queue_spans_of_a_single_thread_up_to_queue_size_while_exporting() throws InterruptedException {
+        var exporter = new BlockingSpanExporter();
+        var configuration = JaegerTracerConfiguration
+            .builder()
+            .batchMaxQueueSize(64)
+            .batchQueueStripes(16)
+            .batchMaxExportBatchSize(8)
+            .batchScheduleDelay(60_000)
+            .build();
+        var processor = new AdaptiveBatchSpanProcessor(exporter, configuration);
+        var tracer = SdkTracerProvider.builder().addSpanProcessor(processor).build().get("test");
+
+        tracer.spanBuilder("first").startSpan().end();
+        var firstFlush = processor.forceFlush();
+        assertThat(exporter.exporting.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // the worker is stuck exporting, a single event loop fills the whole queue
+        for (int i = 0; i < 64; i++) {
+            tracer.spanBuilder("span-" + i).startSpan().end();
+        }
+        assertThat(processor.getDroppedSpans()).isZero();
+        tracer.spanBuilder("overflow").startSpan().end();
+        assertThat(processor.getDroppedSpans()).isEqualTo(1L);
+
+        exporter.pending.succeed();
+        // a flush requested while another one is pending completes with it, so wait for the first one to end
+        assertThat(firstFlush.join(10, TimeUnit.SECONDS).isSuccess()).isTrue();
+        assertThat(processor.forceFlush().join(10, TimeUnit.SECONDS).isSuccess()).isTrue();
+        assertThat(exporter.spans()).hasSize(65);
+        processor.shutdown().join(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Holds the first export until {@link #pending} is completed.
+     */
+    private static class BlockingSpanExporter extends CollectingSpanExporter {
+
+        private final CountDownLatch exporting = new CountDownLatch(1);
+        private final CompletableResultCode pending = new CompletableResultCode();
+
+        @Override
+        public CompletableResultCode export(Collection<SpanData> spans) {
+            super.export(spans);
+            if (exporting.getCount() > 0) {
+                exporting.countDown();
+                return pending;
+            }
+            return CompletableResultCode.ofSuccess();
+        }
+    }
+
+    private static class CollectingSpanExporter implements SpanExporter {
+
+        private final List<List<SpanData>> batches = new CopyOnWriteArrayList<>();
+
+        @Override
+        public CompletableResultCode export(Collection<SpanData> spans) {
+            batches.add(new ArrayList<>(spans));
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode flush() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        List<SpanData> spans() {
+            return batches.stream().flatMap(List::stream).toList();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.processor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.gravitee.tracer.jaeger.JaegerSpan;
+import io.gravitee.tracer.jaeger.configuration.JaegerTracerConfiguration;
+import io.gravitee.tracer.jaeger.metrics.TracerMetrics;
+import io.gravitee.tracer.jaeger.sampler.RecordingSampler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.junit.jupiter.api.Test;
+
+class RedMetricsSpanProcessorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final TracerMetrics metrics = new TracerMetrics(registry);
+
+    @Test
+    void should_aggregate_spans_which_are_not_sampled() {
+        var processor = new RedMetricsSpanProcessor(JaegerTracerConfiguration.builder().build(), metrics);
+        Tracer tracer = tracer(processor, Sampler.traceIdRatioBased(0.5));
+
+        for (int i = 0; i < 100; i++) {
+            tracer.spanBuilder("GET").setSpanKind(SpanKind.SERVER).startSpan().end();
+        }
+        tracer.spanBuilder("GET").setSpanKind(SpanKind.SERVER).setAttribute("http.status_code", "503").startSpan().end();
+        tracer.spanBuilder("GET").setSpanKind(SpanKind.SERVER).setAttribute("error", true).startSpan().end();
+        var failed = tracer.spanBuilder("GET").setSpanKind(SpanKind.SERVER).startSpan();
+        new JaegerSpan(failed, null).reportError("Backend unavailable");
+        failed.end();
+        tracer.spanBuilder("GET").setSpanKind(SpanKind.CLIENT).setAttribute("http.status_code", "404").startSpan().end();
+
+        assertThat(processor.getSeries()).hasSize(2);
+        var server = series(processor, "GET", SpanKind.SERVER);
+        assertThat(server.getRequests()).isEqualTo(103L);
+        assertThat(server.getErrors()).isEqualTo(3L);
+
+        var client = series(processor, "GET", SpanKind.CLIENT);
+        assertThat(client.getRequests()).isEqualTo(1L);
+        assertThat(client.getErrors()).isZero();
+    }
+
+    @Test
+    void should_bound_the_number_of_series() {
+        var processor = new RedMetricsSpanProcessor(JaegerTracerConfiguration.builder().redMaxOperations(2).build(), metrics);
+        Tracer tracer = tracer(processor, Sampler.alwaysOff());
+
+        for (int i = 0; i < 5; i++) {
+            tracer.spanBuilder("operation-" + i).startSpan().end();
+        }
+
+        assertThat(processor.getSeries()).hasSize(3);
+        assertThat(series(processor, RedMetricsSpanProcessor.OTHER, SpanKind.INTERNAL).getRequests()).isEqualTo(3L);
+    }
+
+    @Test
+    void should_record_the_series_in_timers() {
+        var processor = new RedMetricsSpanProcessor(JaegerTracerConfiguration.builder().build(), metrics);
+        Tracer tracer = tracer(processor, Sampler.alwaysOn());
+
+        tracer.spanBuilder("POST").startSpan().end();
+        tracer.spanBuilder("POST").startSpan().end();
+
+        assertThat(registry.get("tracer.red.duration").tags("operation", "POST", "error", "false").timer().count()).isEqualTo(2L);
+    }
+
+    private static Tracer tracer(RedMetricsSpanProcessor processor, Sampler sampler) {
+        return SdkTracerProvider.builder().setSampler(new RecordingSampler(sampler)).addSpanProcessor(processor).build().get("test");
+    }
+
+    private static RedMetricsSpanProcessor.Series series(RedMetricsSpanProcessor processor, String operation, SpanKind kind) {
+        return processor
+            .getSeries()
+            .stream()
+            .filter(series -> series.getOperation().equals(operation) && series.getKind() == kind)
+            .findFirst()
+            .orElseThrow();
+    }
+}
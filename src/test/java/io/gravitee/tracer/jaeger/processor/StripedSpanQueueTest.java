@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.processor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+
+class StripedSpanQueueTest {
+
+    private final Tracer tracer = SdkTracerProvider.builder().build().get("test");
+
+    @Test
+    void should_count_spans_across_stripes() throws Exception {
+        var queue = new StripedSpanQueue(8, 2);
+
+        assertThat(queue.offer(span("main"))).isEqualTo(1);
+        Thread thread = new Thread(() -> queue.offer(span("other")));
+        thread.start();
+        thread.join();
+        // the producers only see the spans of the other stripes once the drainer published them
+        assertThat(queue.offer(span("main"))).isEqualTo(2);
+        assertThat(queue.size()).isEqualTo(3);
+
+        queue.drain(span -> {}, 0);
+        assertThat(queue.offer(span("main"))).isEqualTo(4);
+    }
+
+    @Test
+    void should_bound_the_queue_across_stripes_once_published() throws Exception {
+        var queue = new StripedSpanQueue(4, 4);
+        Thread thread = new Thread(() -> {
+            for (int i = 0; i < 3; i++) {
+                queue.offer(span("other"));
+            }
+        });
+        thread.start();
+        thread.join();
+        queue.drain(span -> {}, 0);
+
+        assertThat(queue.offer(span("main"))).isEqualTo(4);
+        assertThat(queue.offer(span("main"))).isEqualTo(-1);
+    }
+
+    @Test
+    void should_let_a_single_thread_fill_the_whole_queue() {
+        var queue = new StripedSpanQueue(4, 4);
+
+        for (int i = 1; i <= 4; i++) {
+            assertThat(queue.offer(span(String.valueOf(i)))).isEqualTo(i);
+        }
+        assertThat(queue.offer(span("5"))).isEqualTo(-1);
+
+        List<ReadableSpan> drained = new ArrayList<>();
+        assertThat(queue.drain(drained::add, 2)).isEqualTo(2);
+        assertThat(queue.offer(span("6"))).isEqualTo(3);
+        assertThat(queue.size()).isEqualTo(3);
+    }
+
+    @Test
+    void should_drain_every_span_written_concurrently() throws Exception {
+        int threads = 8;
+        int spansPerThread = 1000;
+        var queue = new StripedSpanQueue(threads * spansPerThread, 4);
+        var start = new CountDownLatch(1);
+        List<Thread> producers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            String prefix = "thread-" + i;
+            Thread producer = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int j = 0; j < spansPerThread; j++) {
+                    queue.offer(span(prefix + "-" + j));
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+
+        Set<String> names = ConcurrentHashMap.newKeySet();
+        start.countDown();
+        for (Thread producer : producers) {
+            while (producer.isAlive()) {
+                queue.drain(span -> names.add(span.getName()), 100);
+            }
+        }
+        queue.drain(span -> names.add(span.getName()), Integer.MAX_VALUE);
+
+        assertThat(names).hasSize(threads * spansPerThread);
+        assertThat(queue.isEmpty()).isTrue();
+    }
+
+    private ReadableSpan span(String name) {
+        var span = tracer.spanBuilder(name).startSpan();
+        span.end();
+        return (ReadableSpan) span;
+    }
+}
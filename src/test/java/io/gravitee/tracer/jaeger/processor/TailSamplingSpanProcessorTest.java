@@ -0,0 +1,116 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.processor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.gravitee.tracer.jaeger.JaegerSpan;
+import io.gravitee.tracer.jaeger.configuration.JaegerTracerConfiguration;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TailSamplingSpanProcessorTest {
+
+    private CollectingSpanProcessor collector;
+    private TailSamplingSpanProcessor processor;
+    private Tracer tracer;
+
+    @BeforeEach
+    void setUp() {
+        var configuration = JaegerTracerConfiguration
+            .builder()
+            .tailSamplingEnabled(true)
+            .tailSamplingDecisionWait(60_000)
+            .tailSamplingLatencyThreshold(60_000)
+            .tailSamplingBaselineRatio(0)
+            .build();
+
+        collector = new CollectingSpanProcessor();
+        processor = new TailSamplingSpanProcessor(collector, configuration);
+        tracer = SdkTracerProvider.builder().addSpanProcessor(processor).build().get("test");
+    }
+
+    @Test
+    void should_keep_the_whole_trace_when_a_span_is_in_error() {
+        Span root = tracer.spanBuilder("root").startSpan();
+        Span child = tracer.spanBuilder("child").setParent(Context.root().with(root)).startSpan();
+        new JaegerSpan(child, null).reportError("Backend unavailable");
+        child.end();
+        root.end();
+
+        assertThat(collector.spans).isEmpty();
+        assertThat(processor.getPendingTraces()).isEqualTo(1);
+
+        processor.forceFlush();
+
+        assertThat(collector.spans).extracting(ReadableSpan::getName).containsExactlyInAnyOrder("root", "child");
+        assertThat(processor.getPendingTraces()).isZero();
+    }
+
+    @Test
+    void should_keep_trace_with_a_server_error_response() {
+        Span span = tracer.spanBuilder("request").startSpan();
+        span.setAttribute("http.status_code", "503");
+        span.end();
+
+        processor.forceFlush();
+
+        assertThat(collector.spans).hasSize(1);
+    }
+
+    @Test
+    void should_drop_trace_without_error_nor_latency() {
+        Span root = tracer.spanBuilder("root").startSpan();
+        tracer.spanBuilder("child").setParent(Context.root().with(root)).startSpan().end();
+        root.end();
+
+        processor.forceFlush();
+
+        assertThat(collector.spans).isEmpty();
+    }
+
+    private static class CollectingSpanProcessor implements SpanProcessor {
+
+        private final List<ReadableSpan> spans = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onStart(Context parentContext, ReadWriteSpan span) {}
+
+        @Override
+        public boolean isStartRequired() {
+            return false;
+        }
+
+        @Override
+        public void onEnd(ReadableSpan span) {
+            spans.add(span);
+        }
+
+        @Override
+        public boolean isEndRequired() {
+            return true;
+        }
+    }
+}
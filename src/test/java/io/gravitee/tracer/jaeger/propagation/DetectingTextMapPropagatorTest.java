@@ -0,0 +1,150 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.propagation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.gravitee.tracer.jaeger.HeadersPropagatorGetter;
+import io.gravitee.tracer.jaeger.IndexedHeaders;
+import io.opentelemetry.api.baggage.Baggage;
+import io.opentelemetry.api.baggage.propagation.W3CBaggagePropagator;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapGetter;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import io.opentelemetry.context.propagation.TextMapSetter;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class DetectingTextMapPropagatorTest {
+
+    private static final String TRACE_ID = "0af7651916cd43dd8448eb211c80319c";
+    private static final String TRACEPARENT = "00-" + TRACE_ID + "-b7ad6b7169203331-01";
+
+    private final HeadersPropagatorGetter getter = new HeadersPropagatorGetter();
+    private final FakePropagator jaeger = new FakePropagator("uber-trace-id");
+    private final DetectingTextMapPropagator propagator = new DetectingTextMapPropagator(
+        List.of(
+            new DetectingTextMapPropagator.Format(W3CTraceContextPropagator.getInstance(), true, "traceparent"),
+            new DetectingTextMapPropagator.Format(W3CBaggagePropagator.getInstance(), false, "baggage"),
+            new DetectingTextMapPropagator.Format(jaeger, true, "uber-trace-id")
+        )
+    );
+
+    @Test
+    void should_extract_only_detected_format() {
+        var headers = headers(Map.entry("traceparent", TRACEPARENT));
+
+        Context context = propagator.extract(Context.root(), headers, getter);
+
+        assertThat(Span.fromContext(context).getSpanContext().getTraceId()).isEqualTo(TRACE_ID);
+        assertThat(jaeger.extractions.get()).isZero();
+    }
+
+    @Test
+    void should_extract_from_another_format() {
+        var headers = headers(Map.entry("Uber-Trace-Id", "value"), Map.entry("baggage", "tenant=acme"));
+
+        Context context = propagator.extract(Context.root(), headers, getter);
+
+        assertThat(jaeger.extractions.get()).isEqualTo(1);
+        assertThat(Span.fromContext(context).getSpanContext().getTraceId()).isEqualTo(FakePropagator.TRACE_ID);
+        assertThat(Baggage.fromContext(context).getEntryValue("tenant")).isEqualTo("acme");
+    }
+
+    @Test
+    void should_keep_first_trace_format_when_several_are_present() {
+        var headers = headers(Map.entry("uber-trace-id", "value"), Map.entry("traceparent", TRACEPARENT));
+
+        Context context = propagator.extract(Context.root(), headers, getter);
+
+        assertThat(Span.fromContext(context).getSpanContext().getTraceId()).isEqualTo(TRACE_ID);
+        assertThat(jaeger.extractions.get()).isZero();
+    }
+
+    @Test
+    void should_scan_headers_once() {
+        var iterations = new AtomicInteger();
+        var entries = List.of(Map.entry("Host", "localhost"), Map.entry("baggage", "tenant=acme"), Map.entry("traceparent", TRACEPARENT));
+        Iterable<Map.Entry<String, String>> counting = () -> {
+            iterations.incrementAndGet();
+            return entries.iterator();
+        };
+
+        propagator.extract(Context.root(), IndexedHeaders.of(counting, propagator.fields().toArray(new String[0])), getter);
+
+        assertThat(iterations.get()).isEqualTo(1);
+    }
+
+    @Test
+    void should_inject_all_formats() {
+        Context context = propagator.extract(Context.root(), headers(Map.entry("traceparent", TRACEPARENT)), getter);
+        Map<String, String> injected = new HashMap<>();
+
+        propagator.inject(context, injected, Map::put);
+
+        assertThat(injected).containsKey("traceparent");
+        assertThat(jaeger.injections.get()).isEqualTo(1);
+    }
+
+    @SafeVarargs
+    private Iterable<Map.Entry<String, String>> headers(Map.Entry<String, String>... entries) {
+        return IndexedHeaders.of(List.of(entries), propagator.fields().toArray(new String[0]));
+    }
+
+    private static class FakePropagator implements TextMapPropagator {
+
+        private static final String TRACE_ID = "11111111111111111111111111111111";
+
+        private final String header;
+        private final AtomicInteger extractions = new AtomicInteger();
+        private final AtomicInteger injections = new AtomicInteger();
+
+        private FakePropagator(String header) {
+            this.header = header;
+        }
+
+        @Override
+        public Collection<String> fields() {
+            return List.of(header);
+        }
+
+        @Override
+        public <C> void inject(Context context, C carrier, TextMapSetter<C> setter) {
+            injections.incrementAndGet();
+        }
+
+        @Override
+        public <C> Context extract(Context context, C carrier, TextMapGetter<C> getter) {
+            extractions.incrementAndGet();
+            SpanContext spanContext = SpanContext.createFromRemoteParent(
+                TRACE_ID,
+                "2222222222222222",
+                TraceFlags.getSampled(),
+                TraceState.getDefault()
+            );
+            return context.with(Span.wrap(spanContext));
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.sampler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.gravitee.tracer.jaeger.TracingRule;
+import io.gravitee.tracer.jaeger.TracingRules;
+import io.gravitee.tracer.jaeger.configuration.JaegerTracerConfiguration;
+import io.gravitee.tracer.jaeger.configuration.TracingRuleConfiguration;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class JaegerSamplerBuilderTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+    @Test
+    void should_sample_everything_by_default() {
+        var sampler = JaegerSamplerBuilder.from(JaegerTracerConfiguration.builder().build()).build();
+
+        var result = sampler.shouldSample(Context.root(), TRACE_ID, "op", SpanKind.SERVER, Attributes.empty(), List.of());
+
+        assertThat(result.getDecision()).isEqualTo(SamplingDecision.RECORD_AND_SAMPLE);
+    }
+
+    @Test
+    void should_not_sample_with_const_zero() {
+        var configuration = JaegerTracerConfiguration.builder().samplerType("const").samplerParam(0).build();
+        var sampler = JaegerSamplerBuilder.from(configuration).build();
+
+        var result = sampler.shouldSample(Context.root(), TRACE_ID, "op", SpanKind.SERVER, Attributes.empty(), List.of());
+
+        assertThat(result.getDecision()).isEqualTo(SamplingDecision.DROP);
+    }
+
+    @Test
+    void should_apply_rule_sampling_rate() {
+        var configuration = JaegerTracerConfiguration
+            .builder()
+            .rules(List.of(TracingRuleConfiguration.builder().operation("health").samplingRate(0.0).build()))
+            .build();
+        var sampler = JaegerSamplerBuilder.from(configuration).build();
+        var rule = TracingRules.from(configuration).match("health", null, null);
+
+        var matched = sampler.shouldSample(
+            Context.root().with(TracingRule.CONTEXT_KEY, rule),
+            TRACE_ID,
+            "health",
+            SpanKind.SERVER,
+            Attributes.empty(),
+            List.of()
+        );
+        var unmatched = sampler.shouldSample(Context.root(), TRACE_ID, "op", SpanKind.SERVER, Attributes.empty(), List.of());
+
+        assertThat(matched.getDecision()).isEqualTo(SamplingDecision.DROP);
+        assertThat(unmatched.getDecision()).isEqualTo(SamplingDecision.RECORD_AND_SAMPLE);
+    }
+
+    @Test
+    void should_apply_the_rules_of_the_running_configuration() {
+        var running = JaegerTracerConfiguration
+            .builder()
+            .rules(List.of(TracingRuleConfiguration.builder().operation("health").samplingRate(0.0).build()))
+            .build();
+        var rule = TracingRules.from(running).match("health", null, null);
+        var sampler = JaegerSamplerBuilder
+            .from(JaegerTracerConfiguration.builder().build())
+            .ruleSampling(JaegerSamplerBuilder.hasRuleSampling(running))
+            .build();
+
+        var result = sampler.shouldSample(
+            Context.root().with(TracingRule.CONTEXT_KEY, rule),
+            TRACE_ID,
+            "health",
+            SpanKind.SERVER,
+            Attributes.empty(),
+            List.of()
+        );
+
+        assertThat(result.getDecision()).isEqualTo(SamplingDecision.DROP);
+    }
+
+    @Test
+    void should_register_the_remote_client_as_a_resource() throws Exception {
+        var configuration = JaegerTracerConfiguration
+            .builder()
+            .samplerType("remote")
+            .samplerRemoteUrl("http://localhost:1/sampling")
+            .samplerRemoteRefreshInterval(60_000)
+            .build();
+        List<Closeable> resources = new ArrayList<>();
+
+        JaegerSamplerBuilder.from(configuration).resources(resources::add).build();
+
+        assertThat(resources).hasSize(2);
+        assertThat(resources.get(0)).isInstanceOf(RemoteSampler.class);
+        for (Closeable resource : resources) {
+            resource.close();
+        }
+    }
+
+    @Test
+    void should_limit_sampled_traces_per_second() {
+        var sampler = new RateLimitingSampler(10);
+
+        int sampled = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (sampler.tryAcquire()) {
+                sampled++;
+            }
+        }
+
+        assertThat(sampled).isBetween(10, 12);
+    }
+
+    @Test
+    void should_never_sample_with_a_zero_rate() {
+        var sampler = new RateLimitingSampler(0);
+
+        assertThat(sampler.tryAcquire()).isFalse();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.sampler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+class RemoteSamplerTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+    @Test
+    void should_parse_probabilistic_strategy() {
+        var sampler = SamplingStrategies.parse("{\"strategyType\":\"PROBABILISTIC\",\"probabilisticSampling\":{\"samplingRate\":0}}");
+
+        assertThat(decision(sampler, "GET")).isEqualTo(SamplingDecision.DROP);
+    }
+
+    @Test
+    void should_parse_rate_limiting_strategy_from_ordinal() {
+        var sampler = SamplingStrategies.parse("{\"strategyType\":1,\"rateLimitingSampling\":{\"maxTracesPerSecond\":2}}");
+
+        assertThat(sampler).isInstanceOf(RateLimitingSampler.class);
+        assertThat(decision(sampler, "GET")).isEqualTo(SamplingDecision.RECORD_AND_SAMPLE);
+    }
+
+    @Test
+    void should_apply_per_operation_strategies() {
+        var sampler = SamplingStrategies.parse(
+            "{\"operationSampling\":{\"defaultSamplingProbability\":1,\"perOperationStrategies\":[" +
+            "{\"operation\":\"GET\",\"probabilisticSampling\":{\"samplingRate\":0}}," +
+            "{\"operation\":\"POST\",\"rateLimitingSampling\":{\"maxTracesPerSecond\":1}}]}}"
+        );
+
+        assertThat(decision(sampler, "GET")).isEqualTo(SamplingDecision.DROP);
+        assertThat(decision(sampler, "PUT")).isEqualTo(SamplingDecision.RECORD_AND_SAMPLE);
+        assertThat(decision(sampler, "POST")).isEqualTo(SamplingDecision.RECORD_AND_SAMPLE);
+        assertThat(decision(sampler, "POST")).isEqualTo(SamplingDecision.DROP);
+    }
+
+    @Test
+    void should_guarantee_lower_bound_throughput() {
+        var sampler = SamplingStrategies.parse(
+            "{\"operationSampling\":{\"defaultSamplingProbability\":0,\"defaultLowerBoundTracesPerSecond\":1}}"
+        );
+
+        assertThat(decision(sampler, "GET")).isEqualTo(SamplingDecision.RECORD_AND_SAMPLE);
+        assertThat(decision(sampler, "GET")).isEqualTo(SamplingDecision.DROP);
+    }
+
+    @Test
+    void should_refresh_strategy_and_keep_it_on_failure() {
+        var strategy = new AtomicReference<>("{\"strategyType\":\"PROBABILISTIC\",\"probabilisticSampling\":{\"samplingRate\":0}}");
+        try (var sampler = new RemoteSampler(Sampler.alwaysOn(), strategy::get, 60_000)) {
+            sampler.refresh();
+            assertThat(decision(sampler, "GET")).isEqualTo(SamplingDecision.DROP);
+
+            Sampler loaded = sampler.getDelegate();
+            sampler.refresh();
+            assertThat(sampler.getDelegate()).isSameAs(loaded);
+
+            strategy.set("not json");
+            sampler.refresh();
+            assertThat(sampler.getDelegate()).isSameAs(loaded);
+
+            strategy.set("{\"strategyType\":\"PROBABILISTIC\",\"probabilisticSampling\":{\"samplingRate\":1}}");
+            sampler.refresh();
+            assertThat(decision(sampler, "GET")).isEqualTo(SamplingDecision.RECORD_AND_SAMPLE);
+        }
+    }
+
+    private static SamplingDecision decision(Sampler sampler, String operation) {
+        return sampler.shouldSample(Context.root(), TRACE_ID, operation, SpanKind.SERVER, Attributes.empty(), List.of()).getDecision();
+    }
+}
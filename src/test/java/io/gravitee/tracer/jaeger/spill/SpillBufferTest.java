@@ -0,0 +1,227 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.spill;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SpillBufferTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void should_read_records_in_order_until_committed() throws Exception {
+        var buffer = new SpillBuffer(directory, 1024 * 1024, 64 * 1024);
+        for (int i = 0; i < 5; i++) {
+            assertThat(buffer.append(record("record-" + i))).isTrue();
+        }
+
+        assertThat(names(buffer.peek(3))).containsExactly("record-0", "record-1", "record-2");
+        assertThat(names(buffer.peek(3))).containsExactly("record-0", "record-1", "record-2");
+
+        buffer.commit(3);
+
+        assertThat(buffer.size()).isEqualTo(2);
+        assertThat(names(buffer.peek(10))).containsExactly("record-3", "record-4");
+    }
+
+    @Test
+    void should_span_records_across_segments_and_release_them() throws Exception {
+        var buffer = new SpillBuffer(directory, 1024 * 1024, 64);
+        for (int i = 0; i < 10; i++) {
+            assertThat(buffer.append(record("record-" + i))).isTrue();
+        }
+
+        assertThat(names(buffer.peek(10))).hasSize(10);
+
+        buffer.commit(10);
+
+        assertThat(buffer.isEmpty()).isTrue();
+        assertThat(segments()).hasSize(1);
+    }
+
+    @Test
+    void should_refuse_records_once_full() throws Exception {
+        // two segments of 64 bytes, each holding 4 records of 12 bytes after its 12 bytes header
+        var buffer = new SpillBuffer(directory, 128, 64);
+
+        int appended = 0;
+        while (buffer.append(record("record-" + appended))) {
+            appended++;
+        }
+
+        assertThat(appended).isEqualTo(8);
+        assertThat(buffer.size()).isEqualTo(8);
+    }
+
+    @Test
+    void should_keep_records_across_restarts() throws Exception {
+        var buffer = new SpillBuffer(directory, 1024 * 1024, 64);
+        for (int i = 0; i < 5; i++) {
+            buffer.append(record("record-" + i));
+        }
+        buffer.commit(2);
+        buffer.close();
+
+        var reopened = new SpillBuffer(directory, 1024 * 1024, 64);
+
+        assertThat(reopened.size()).isEqualTo(3);
+        assertThat(names(reopened.peek(10))).containsExactly("record-2", "record-3", "record-4");
+        assertThat(reopened.append(record("record-5"))).isTrue();
+        assertThat(reopened.size()).isEqualTo(4);
+    }
+
+    @Test
+    void should_reject_records_once_closed() throws Exception {
+        var buffer = new SpillBuffer(directory, 1024 * 1024, 64);
+        buffer.append(record("record-0"));
+
+        buffer.close();
+
+        assertThat(buffer.isEmpty()).isTrue();
+        assertThat(buffer.append(record("record-1"))).isFalse();
+        assertThat(buffer.peek(10)).isEmpty();
+        assertThat(segments()).hasSize(1);
+    }
+
+    @Test
+    void should_refuse_a_directory_already_in_use() throws Exception {
+        var buffer = new SpillBuffer(directory, 1024 * 1024, 64);
+
+        assertThatThrownBy(() -> new SpillBuffer(directory, 1024 * 1024, 64)).isInstanceOf(IOException.class);
+
+        buffer.close();
+        new SpillBuffer(directory, 1024 * 1024, 64).close();
+    }
+
+    @Test
+    void should_drop_the_records_following_a_corrupted_length() throws Exception {
+        var buffer = new SpillBuffer(directory, 1024 * 1024, 64 * 1024);
+        for (int i = 0; i < 3; i++) {
+            buffer.append(record("record-" + i));
+        }
+        buffer.close();
+
+        // the second record starts after the 16 bytes header and the 12 bytes of the first one
+        Path segment = directory.resolve(segments()[0]);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, Integer.MAX_VALUE), 28);
+        }
+
+        var reopened = new SpillBuffer(directory, 1024 * 1024, 64 * 1024);
+
+        assertThat(reopened.size()).isEqualTo(1);
+        assertThat(names(reopened.peek(10))).containsExactly("record-0");
+    }
+
+    @Test
+    void should_reject_a_spilled_span_with_a_corrupted_length() throws Exception {
+        var span = SdkTracerProvider.builder().build().get("test").spanBuilder("operation").startSpan();
+        span.end();
+        byte[] record = SpanDataCodec.encode(((ReadableSpan) span).toSpanData());
+
+        // the trace id length follows the version and the span context validity flag
+        ByteBuffer.wrap(record).putInt(2, Integer.MAX_VALUE);
+
+        assertThatThrownBy(() -> SpanDataCodec.decode(record, Resource.empty())).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void should_keep_the_segment_metadata_once_per_segment() throws Exception {
+        var buffer = new SpillBuffer(directory, 1024 * 1024, 64 * 1024);
+        byte[] first = "first".getBytes(StandardCharsets.UTF_8);
+        byte[] second = "second".getBytes(StandardCharsets.UTF_8);
+        buffer.append(first, record("record-0"));
+        buffer.append(first, record("record-1"));
+        buffer.append(second, record("record-2"));
+        buffer.close();
+
+        assertThat(segments()).hasSize(2);
+
+        var reopened = new SpillBuffer(directory, 1024 * 1024, 64 * 1024);
+        List<String> read = new ArrayList<>();
+        reopened.peek(
+            10,
+            (metadata, record) -> read.add(new String(metadata, StandardCharsets.UTF_8) + "/" + new String(record, StandardCharsets.UTF_8))
+        );
+
+        assertThat(read).containsExactly("first/record-0", "first/record-1", "second/record-2");
+    }
+
+    @Test
+    void should_encode_and_decode_spans() throws Exception {
+        var tracer = SdkTracerProvider.builder().build().get("test");
+        Span span = tracer
+            .spanBuilder("operation")
+            .setAttribute("http.method", "GET")
+            .setAttribute(AttributeKey.longKey("http.status_code"), 503L)
+            .startSpan();
+        span.addEvent("retry");
+        span.setStatus(StatusCode.ERROR, "Service Unavailable");
+        span.end();
+        SpanData original = ((ReadableSpan) span).toSpanData();
+
+        SpanData decoded = SpanDataCodec.decode(
+            SpanDataCodec.encode(original),
+            SpanDataCodec.decodeResource(SpanDataCodec.encodeResource(original.getResource()))
+        );
+
+        assertThat(decoded.getSpanContext()).isEqualTo(original.getSpanContext());
+        assertThat(decoded.getParentSpanContext()).isEqualTo(original.getParentSpanContext());
+        assertThat(decoded.getResource()).isEqualTo(original.getResource());
+        assertThat(decoded.getName()).isEqualTo("operation");
+        assertThat(decoded.getKind()).isEqualTo(original.getKind());
+        assertThat(decoded.getStartEpochNanos()).isEqualTo(original.getStartEpochNanos());
+        assertThat(decoded.getEndEpochNanos()).isEqualTo(original.getEndEpochNanos());
+        assertThat(decoded.getAttributes().asMap()).isEqualTo(original.getAttributes().asMap());
+        assertThat(decoded.getStatus()).isEqualTo(original.getStatus());
+        assertThat(decoded.getEvents()).hasSize(1);
+        assertThat(decoded.getEvents().get(0).getName()).isEqualTo("retry");
+        assertThat(decoded.getResource()).isEqualTo(original.getResource());
+        assertThat(decoded.getInstrumentationScopeInfo()).isEqualTo(original.getInstrumentationScopeInfo());
+    }
+
+    private String[] segments() {
+        return directory.toFile().list((dir, name) -> name.endsWith(".spill"));
+    }
+
+    private static byte[] record(String name) {
+        return name.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> names(List<byte[]> records) {
+        return records.stream().map(record -> new String(record, StandardCharsets.UTF_8)).toList();
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.tracer.jaeger.spill;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.gravitee.tracer.jaeger.configuration.JaegerTracerConfiguration;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SpillingSpanExporterTest {
+
+    @TempDir
+    Path directory;
+
+    private final FlakySpanExporter collector = new FlakySpanExporter();
+
+    private final JaegerTracerConfiguration configuration = JaegerTracerConfiguration.builder().spillReplayInterval(50).build();
+
+    @Test
+    void should_export_directly_when_collector_is_available() throws Exception {
+        var exporter = new SpillingSpanExporter(collector, new SpillBuffer(directory, 1024 * 1024, 64 * 1024), configuration);
+
+        assertThat(exporter.export(spans("span-1", "span-2")).isSuccess()).isTrue();
+
+        assertThat(collector.names()).containsExactly("span-1", "span-2");
+        assertThat(exporter.getSpilledSpans()).isZero();
+        exporter.shutdown();
+    }
+
+    @Test
+    void should_spill_spans_and_replay_them_in_order_once_collector_is_back() throws Exception {
+        var exporter = new SpillingSpanExporter(collector, new SpillBuffer(directory, 1024 * 1024, 64 * 1024), configuration);
+        collector.available = false;
+
+        assertThat(exporter.export(spans("span-1", "span-2")).isSuccess()).isTrue();
+        assertThat(exporter.export(spans("span-3")).isSuccess()).isTrue();
+        assertThat(exporter.getSpilledSpans()).isEqualTo(3);
+
+        collector.available = true;
+        assertThat(exporter.export(spans("span-4")).isSuccess()).isTrue();
+        awaitReplay(exporter, 4);
+
+        assertThat(collector.names()).containsExactly("span-1", "span-2", "span-3", "span-4");
+        assertThat(exporter.getPendingSpans()).isZero();
+        exporter.shutdown();
+    }
+
+    @Test
+    void should_spill_overflowing_spans() throws Exception {
+        var exporter = new SpillingSpanExporter(collector, new SpillBuffer(directory, 1024 * 1024, 64 * 1024), configuration);
+        var tracer = SdkTracerProvider.builder().build().get("test");
+        Span span = tracer.spanBuilder("overflow").startSpan();
+        span.end();
+
+        assertThat(exporter.offer((ReadableSpan) span)).isTrue();
+        awaitReplay(exporter, 1);
+
+        assertThat(collector.names()).containsExactly("overflow");
+        exporter.shutdown();
+    }
+
+    @Test
+    void should_drop_spans_when_spill_buffer_is_full() throws Exception {
+        var exporter = new SpillingSpanExporter(collector, new SpillBuffer(directory, 1024, 1024), configuration);
+        collector.available = false;
+
+        String[] names = new String[50];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "span-" + i;
+        }
+
+        assertThat(exporter.export(spans(names)).isSuccess()).isTrue();
+        assertThat(exporter.getDroppedSpans()).isGreaterThan(0);
+        assertThat(exporter.getSpilledSpans() + exporter.getDroppedSpans()).isEqualTo(50);
+        exporter.shutdown();
+    }
+
+    @Test
+    void should_not_wait_for_the_spill_thread_beyond_the_shutdown_deadline() throws Exception {
+        var exporter = new SpillingSpanExporter(collector, new SpillBuffer(directory, 1024 * 1024, 64 * 1024), configuration);
+        collector.available = false;
+        exporter.export(spans("span-1"));
+
+        // the replay gets stuck in the collector, which ignores interruptions
+        collector.hanging = true;
+        Thread.sleep(200);
+
+        long start = System.nanoTime();
+        exporter.shutdownBefore(start + TimeUnit.MILLISECONDS.toNanos(100));
+        exporter.shutdown();
+
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(2));
+        collector.hanging = false;
+    }
+
+    @Test
+    void should_drop_spans_exported_after_the_shutdown() throws Exception {
+        var exporter = new SpillingSpanExporter(collector, new SpillBuffer(directory, 1024 * 1024, 64 * 1024), configuration);
+        exporter.shutdown();
+        collector.available = false;
+
+        assertThat(exporter.export(spans("late")).isSuccess()).isTrue();
+
+        assertThat(exporter.getDroppedSpans()).isEqualTo(1);
+        assertThat(exporter.getPendingSpans()).isZero();
+        try (var files = Files.list(directory)) {
+            assertThat(files.filter(file -> file.toString().endsWith(".spill")).toList()).isEmpty();
+        }
+    }
+
+    private static void awaitReplay(SpillingSpanExporter exporter, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (exporter.getReplayedSpans() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static List<SpanData> spans(String... names) {
+        var tracer = SdkTracerProvider.builder().build().get("test");
+        return Arrays
+            .stream(names)
+            .map(name -> {
+                Span span = tracer.spanBuilder(name).startSpan();
+                span.end();
+                return ((ReadableSpan) span).toSpanData();
+            })
+            .toList();
+    }
+
+    private static class FlakySpanExporter implements SpanExporter {
+
+        private final List<SpanData> spans = new CopyOnWriteArrayList<>();
+        private volatile boolean available = true;
+        private volatile boolean hanging;
+
+        @Override
+        public CompletableResultCode export(Collection<SpanData> batch) {
+            while (hanging) {
+                Thread.onSpinWait();
+            }
+            if (!available) {
+                return CompletableResultCode.ofFailure();
+            }
+            spans.addAll(batch);
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode flush() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        List<String> names() {
+            return spans.stream().map(SpanData::getName).toList();
+        }
+    }
+}